@@ -0,0 +1,118 @@
+package uz.khoshimjonov.quickpeek;
+
+import java.util.Random;
+
+public final class Corpus {
+
+    public enum Size {
+        SMALL(1024),
+        MEDIUM(100 * 1024),
+        LARGE(10 * 1024 * 1024);
+
+        private final int bytes;
+
+        Size(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int bytes() {
+            return bytes;
+        }
+    }
+
+    public enum Shape {
+        SHALLOW,
+        DEEP
+    }
+
+    public enum Validity {
+        VALID,
+        MALFORMED
+    }
+
+    private static final int DEEP_NESTING = 64;
+
+    private Corpus() {
+    }
+
+    public static String json(Size size, Shape shape, Validity validity) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size.bytes() + 1024).append('[');
+        for (int record = 0; builder.length() < size.bytes(); record++) {
+            if (record > 0) {
+                builder.append(',');
+            }
+            if (shape == Shape.SHALLOW) {
+                builder.append("{\"id\":").append(record)
+                        .append(",\"name\":\"user ").append(record).append('"')
+                        .append(",\"active\":").append(random.nextBoolean())
+                        .append(",\"score\":").append(random.nextInt(10_000) / 100.0)
+                        .append(",\"tags\":[\"alpha\",\"beta\",\"gamma\"]")
+                        .append(",\"address\":null}");
+            } else {
+                for (int level = 0; level < DEEP_NESTING; level++) {
+                    builder.append("{\"level\":").append(level).append(",\"child\":");
+                }
+                builder.append("[]");
+                builder.append("}".repeat(DEEP_NESTING));
+            }
+        }
+        return finish(builder.append(']'), validity, "");
+    }
+
+    public static String xml(Size size, Shape shape, Validity validity) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size.bytes() + 1024)
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><records>");
+        for (int record = 0; builder.length() < size.bytes(); record++) {
+            if (shape == Shape.SHALLOW) {
+                builder.append("<user id=\"").append(record).append("\">")
+                        .append("<name>user ").append(record).append("</name>")
+                        .append("<active>").append(random.nextBoolean()).append("</active>")
+                        .append("<score>").append(random.nextInt(10_000) / 100.0).append("</score>")
+                        .append("<!-- generated --><tags><tag>alpha</tag><tag>beta</tag></tags>")
+                        .append("</user>");
+            } else {
+                for (int level = 0; level < DEEP_NESTING; level++) {
+                    builder.append("<node level=\"").append(level).append("\">");
+                }
+                builder.append("<leaf/>");
+                builder.append("</node>".repeat(DEEP_NESTING));
+            }
+        }
+        return finish(builder.append("</records>"), validity, "");
+    }
+
+    public static String javaObject(Size size, Shape shape, Validity validity) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size.bytes() + 1024).append("Snapshot(");
+        for (int record = 0; builder.length() < size.bytes(); record++) {
+            if (record > 0) {
+                builder.append(", ");
+            }
+            builder.append("entry").append(record).append('=');
+            if (shape == Shape.SHALLOW) {
+                builder.append("User(id=").append(record)
+                        .append(", name=user ").append(record)
+                        .append(", active=").append(random.nextBoolean())
+                        .append(", score=").append(random.nextInt(10_000) / 100.0)
+                        .append(", status=ACTIVE, tags=[alpha, beta], address=null)");
+            } else {
+                for (int level = 0; level < DEEP_NESTING; level++) {
+                    builder.append("Node(level=").append(level).append(", child=");
+                }
+                builder.append("null");
+                builder.append(")".repeat(DEEP_NESTING));
+            }
+        }
+        return finish(builder.append(')'), validity, ")");
+    }
+
+    // Malformed inputs are cut short so the formatters hit their error and fallback paths
+    private static String finish(StringBuilder builder, Validity validity, String terminator) {
+        if (validity == Validity.VALID) {
+            return builder.toString();
+        }
+        return builder.substring(0, builder.length() * 9 / 10) + terminator;
+    }
+}
@@ -0,0 +1,52 @@
+package uz.khoshimjonov.quickpeek;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uz.khoshimjonov.quickpeek.format.JsonFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JsonFormatterBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    private Corpus.Size size;
+
+    @Param({"SHALLOW", "DEEP"})
+    private Corpus.Shape shape;
+
+    @Param({"VALID", "MALFORMED"})
+    private Corpus.Validity validity;
+
+    private final JsonFormatter formatter = new JsonFormatter();
+    private String input;
+
+    @Setup
+    public void setUp() {
+        input = Corpus.json(size, shape, validity);
+    }
+
+    @Benchmark
+    public String formatJson() {
+        return formatter.formatJson(input);
+    }
+
+    @Benchmark
+    public String formatJsonManually() {
+        return formatter.formatJsonManually(input);
+    }
+}
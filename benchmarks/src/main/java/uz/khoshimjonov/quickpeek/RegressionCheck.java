@@ -0,0 +1,74 @@
+package uz.khoshimjonov.quickpeek;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compares two JMH JSON result files and exits non-zero when any benchmark regressed by more than the
+// allowed percentage: lower throughput, higher p99 latency or more allocation per operation.
+public class RegressionCheck {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: RegressionCheck <baseline.json> <current.json> [allowed-regression-percent]");
+            System.exit(2);
+        }
+        double allowed = (args.length > 2 ? Double.parseDouble(args[2]) : 10.0) / 100.0;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = index(objectMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+
+            regressions += compare(entry.getKey(), "score", latencyOrScore(before), latencyOrScore(after), higherIsBetter, allowed);
+            regressions += compare(entry.getKey(), "alloc B/op", allocation(before), allocation(after), false, allowed);
+        }
+
+        System.out.println(regressions == 0 ? "No regressions" : regressions + " regression(s) found");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> indexed = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            indexed.put(result.path("benchmark").asText() + " [" + result.path("mode").asText() + "] " + result.path("params"), result);
+        }
+        return indexed;
+    }
+
+    // Sample-time runs are judged on their p99, everything else on the primary score
+    private static double latencyOrScore(JsonNode result) {
+        JsonNode p99 = result.path("primaryMetric").path("scorePercentiles").path("99.0");
+        if ("sample".equals(result.path("mode").asText()) && p99.isNumber()) {
+            return p99.asDouble();
+        }
+        return result.path("primaryMetric").path("score").asDouble(Double.NaN);
+    }
+
+    private static double allocation(JsonNode result) {
+        return result.path("secondaryMetrics").path("gc.alloc.rate.norm").path("score").asDouble(Double.NaN);
+    }
+
+    private static int compare(String key, String metric, double before, double after, boolean higherIsBetter, double allowed) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before <= 0) {
+            return 0;
+        }
+        double change = (after - before) / before;
+        boolean regressed = higherIsBetter ? change < -allowed : change > allowed;
+        if (regressed) {
+            System.out.printf("REGRESSION %s %s: %.3f -> %.3f (%+.1f%%)%n", key, metric, before, after, change * 100);
+        }
+        return regressed ? 1 : 0;
+    }
+}
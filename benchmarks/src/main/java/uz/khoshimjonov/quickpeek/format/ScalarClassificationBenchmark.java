@@ -0,0 +1,79 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScalarClassificationBenchmark {
+    private static final String[] SCALARS = {
+            "null", "'c'", "\"quoted value\"", "42", "-17", "3.14", "-0.5", "true", "FALSE",
+            "ACTIVE", "PENDING_REVIEW", "plain", "two words", "2024-01-15T10:15:30"
+    };
+
+    @Param({"100", "10000"})
+    private int fieldCount;
+
+    private final JavaObjectFormatter formatter = new JavaObjectFormatter();
+    private String dump;
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(fieldCount);
+        StringBuilder builder = new StringBuilder("Record(");
+        values = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = SCALARS[random.nextInt(SCALARS.length)];
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append("field").append(i).append('=').append(values[i]);
+        }
+        dump = builder.append(')').toString();
+    }
+
+    @Benchmark
+    public String formatWideDump() {
+        return formatter.formatJavaObject(dump);
+    }
+
+    @Benchmark
+    public void classifyScalars(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(JavaObjectFormatter.classify(value, 0, value.length()));
+        }
+    }
+
+    // The regex chain the formatter used before the hand-written classifier, kept as the baseline
+    @Benchmark
+    public void classifyScalarsWithRegex(Blackhole blackhole) {
+        for (String value : values) {
+            boolean scalar = value.equals("null")
+                    || (value.startsWith("'") && value.endsWith("'"))
+                    || (value.startsWith("\"") && value.endsWith("\""))
+                    || value.matches("^-?\\d+$")
+                    || value.matches("^-?\\d*\\.\\d+$")
+                    || value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")
+                    || (value.contains(" ") && !value.matches("^[A-Z_]+$"));
+            blackhole.consume(scalar);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+#!/bin/sh
+# Cold-start benchmark for the jlink image: time from process launch to the tray icon and to the first popup,
+# without class-data sharing and with the archive built by `mvn -Pappcds package`. Each run is the app's
+# training workload, so it needs a desktop session. Run from the project root:
+#
+#   mvn -Pappcds package && benchmarks/startup.sh
+#
+# IMAGE (default target/app) and RUNS (default 5) can be overridden from the environment.
+
+IMAGE=${IMAGE:-target/app}
+RUNS=${RUNS:-5}
+MAIN=uz.khoshimjonov.quickpeek/uz.khoshimjonov.quickpeek.QuickPeekApplication
+
+if [ ! -x "$IMAGE/bin/java" ]; then
+    echo "No image at $IMAGE; build it with mvn -Pappcds package" >&2
+    exit 1
+fi
+if [ ! -f "$IMAGE/lib/server/classes.jsa" ]; then
+    echo "Warning: $IMAGE has no CDS archive, both rows measure the same thing" >&2
+fi
+
+# Prints "<label>  tray min/avg  first popup min/avg" over RUNS launches with the given JVM options
+measure() {
+    label=$1
+    shift
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        "$IMAGE/bin/java" "$@" -m "$MAIN" --train 2>/dev/null | grep '^Startup:'
+        i=$((i + 1))
+    done | awk -v label="$label" '
+        { value = $(NF - 1) }
+        /tray ready/    { tray += value; trays++; if (trayMin == "" || value < trayMin) trayMin = value }
+        /first popup/   { popup += value; popups++; if (popupMin == "" || value < popupMin) popupMin = value }
+        END {
+            if (trays == 0 || popups == 0) { printf "%-10s no startup lines; is a desktop session available?\n", label; exit }
+            printf "%-10s tray %5d ms min %5d ms avg   first popup %5d ms min %5d ms avg\n",
+                label, trayMin, tray / trays, popupMin, popup / popups
+        }'
+}
+
+measure "no CDS" -Xshare:off
+measure "AppCDS" -Xshare:auto
@@ -1,10 +1,15 @@
 module uz.khoshimjonov.quickpeek {
     requires javafx.controls;
-    requires javafx.fxml;
+    requires java.xml;
     requires com.fasterxml.jackson.databind;
     requires com.github.kwhat.jnativehook;
+    requires jdk.jfr;
 
-
-    opens uz.khoshimjonov.quickpeek to javafx.fxml;
     exports uz.khoshimjonov.quickpeek;
+    exports uz.khoshimjonov.quickpeek.diff;
+    exports uz.khoshimjonov.quickpeek.format;
+    exports uz.khoshimjonov.quickpeek.metrics;
+    exports uz.khoshimjonov.quickpeek.outline;
+    exports uz.khoshimjonov.quickpeek.query;
+    exports uz.khoshimjonov.quickpeek.search;
 }
\ No newline at end of file
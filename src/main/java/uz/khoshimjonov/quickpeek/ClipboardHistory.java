@@ -0,0 +1,309 @@
+package uz.khoshimjonov.quickpeek;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Recently viewed payloads, newest first, to flip back through without reading the clipboard or formatting
+// again. Each entry keeps its source text and formatted text Deflate-compressed, which shrinks indented JSON,
+// XML and logs several times over; recalling one costs an inflate and a line index. Bounded by entry count
+// and compressed bytes. With a spill file, entries pushed out of the memory budget, or too large for it to
+// begin with, move to disk, indexed by offset, and are read back on recall. Shared by the formatting workers and the FX thread.
+public final class ClipboardHistory implements AutoCloseable {
+    private static final int COMPACT_MIN_DEAD_BYTES = 1024 * 1024;
+
+    public record Entry(String source, DisplayResult result) {
+    }
+
+    private static final class Slot {
+        final FormatCache.Key key;
+        final ContentType contentType;
+        final int sourceBytes;
+        final int length;
+        byte[] data;
+        long offset = -1;
+
+        Slot(FormatCache.Key key, ContentType contentType, byte[] data, int sourceBytes) {
+            this.key = key;
+            this.contentType = contentType;
+            this.data = data;
+            this.sourceBytes = sourceBytes;
+            this.length = data.length;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxMemoryBytes;
+    private final long maxSpillBytes;
+    private final Path spillFile;
+    private final FileChannel spill;
+    private final List<Slot> slots = new ArrayList<>();
+    private long memoryBytes;
+    private long spillEnd;
+    private long spillLiveBytes;
+
+    // Without a spill file, entries that do not fit in 'maxMemoryBytes' are dropped
+    public ClipboardHistory(int maxEntries, long maxMemoryBytes) {
+        this.maxEntries = maxEntries;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxSpillBytes = 0;
+        this.spillFile = null;
+        this.spill = null;
+    }
+
+    // Spills to a temp file, readable by the current user only where the file system supports it, that is
+    // deleted on close or exit
+    public ClipboardHistory(int maxEntries, long maxMemoryBytes, long maxSpillBytes) throws IOException {
+        this.maxEntries = maxEntries;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillFile = Files.createTempFile("quickpeek-history-", ".bin");
+        spillFile.toFile().deleteOnExit();
+        this.spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Adds the entry as the newest, replacing an older one with the same content. Compresses on the calling
+    // thread, outside the lock.
+    public void add(String source, FormatCache.Key key, DisplayResult result) {
+        byte[] sourceData = deflate(source);
+        byte[] textData = deflate(result.text());
+        byte[] data = new byte[sourceData.length + textData.length];
+        System.arraycopy(sourceData, 0, data, 0, sourceData.length);
+        System.arraycopy(textData, 0, data, sourceData.length, textData.length);
+        if (data.length > maxMemoryBytes && (spill == null || data.length > maxSpillBytes)) {
+            return;
+        }
+        Slot slot = new Slot(key, result.contentType(), data, sourceData.length);
+
+        synchronized (this) {
+            for (int i = 0; i < slots.size(); i++) {
+                if (slots.get(i).key.equals(key)) {
+                    release(slots.remove(i));
+                    break;
+                }
+            }
+            slots.add(0, slot);
+            memoryBytes += data.length;
+            try {
+                if (data.length > maxMemoryBytes) {
+                    // straight to disk, rather than pushing every older entry there and then this one too
+                    write(slot);
+                }
+                trim();
+            } catch (IOException e) {
+                System.out.println("Could not spill clipboard history: " + e.getMessage());
+                if (slot.data != null && data.length > maxMemoryBytes) {
+                    slots.remove(slot);
+                    release(slot);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return spillLiveBytes;
+    }
+
+    Path getSpillFile() {
+        return spillFile;
+    }
+
+    // Identifies an entry across additions, which shift the indexes; null if there is no entry at 'index'
+    public synchronized FormatCache.Key keyAt(int index) {
+        return index >= 0 && index < slots.size() ? slots.get(index).key : null;
+    }
+
+    // Current index of the entry with 'key', or -1 once it has left the history
+    public synchronized int indexOf(FormatCache.Key key) {
+        for (int i = 0; i < slots.size(); i++) {
+            if (slots.get(i).key.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The entry at 'index', 0 being the newest, or null if there is none or it cannot be read back
+    public Entry get(int index) {
+        Slot slot;
+        byte[] data;
+        synchronized (this) {
+            if (index < 0 || index >= slots.size()) {
+                return null;
+            }
+            slot = slots.get(index);
+            data = slot.data;
+            if (data == null) {
+                try {
+                    data = read(slot);
+                } catch (IOException e) {
+                    System.out.println("Could not read clipboard history: " + e.getMessage());
+                    return null;
+                }
+            }
+        }
+        try {
+            String source = inflate(data, 0, slot.sourceBytes);
+            String text = inflate(data, slot.sourceBytes, slot.length - slot.sourceBytes);
+            return new Entry(source, new DisplayResult(text, LineIndex.of(text), slot.contentType));
+        } catch (DataFormatException e) {
+            System.out.println("Corrupt clipboard history entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Oldest entries leave memory first: onto disk if there is a spill file, otherwise out of the history
+    private void trim() throws IOException {
+        while (slots.size() > maxEntries) {
+            release(slots.remove(slots.size() - 1));
+        }
+        for (int i = slots.size() - 1; i >= 0 && memoryBytes > maxMemoryBytes; i--) {
+            Slot slot = slots.get(i);
+            if (slot.data == null) {
+                continue;
+            }
+            if (spill == null) {
+                release(slots.remove(i));
+            } else {
+                write(slot);
+            }
+        }
+        while (spillLiveBytes > maxSpillBytes) {
+            release(slots.remove(slots.size() - 1));
+        }
+        long dead = spillEnd - spillLiveBytes;
+        if (dead >= COMPACT_MIN_DEAD_BYTES && dead > spillLiveBytes) {
+            compact();
+        }
+    }
+
+    private void release(Slot slot) {
+        if (slot.data != null) {
+            memoryBytes -= slot.length;
+        } else {
+            spillLiveBytes -= slot.length;
+        }
+    }
+
+    private void write(Slot slot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(slot.data);
+        long position = spillEnd;
+        while (buffer.hasRemaining()) {
+            position += spill.write(buffer, position);
+        }
+        slot.offset = spillEnd;
+        spillEnd = position;
+        spillLiveBytes += slot.length;
+        memoryBytes -= slot.length;
+        slot.data = null;
+    }
+
+    private byte[] read(Slot slot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(slot.length);
+        while (buffer.hasRemaining()) {
+            if (spill.read(buffer, slot.offset + buffer.position()) < 0) {
+                throw new IOException("Spill file is truncated");
+            }
+        }
+        return buffer.array();
+    }
+
+    // Moves the spilled entries that are still in the history to the front of the file, in file order, so
+    // that every copy goes to an offset at or below the one it comes from
+    private void compact() throws IOException {
+        List<Slot> spilled = new ArrayList<>();
+        for (Slot slot : slots) {
+            if (slot.data == null) {
+                spilled.add(slot);
+            }
+        }
+        spilled.sort(Comparator.comparingLong(slot -> slot.offset));
+        long position = 0;
+        for (Slot slot : spilled) {
+            ByteBuffer buffer = ByteBuffer.wrap(read(slot));
+            slot.offset = position;
+            while (buffer.hasRemaining()) {
+                position += spill.write(buffer, position);
+            }
+        }
+        spill.truncate(position);
+        spillEnd = position;
+    }
+
+    private static byte[] deflate(String text) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, text.length() / 4));
+            byte[] buffer = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] data, int offset, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+            byte[] buffer = new byte[16 * 1024];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && !inflater.finished() && inflater.needsInput()) {
+                    throw new DataFormatException("Entry ends early");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d entries, %.1f MB in memory, %.1f MB spilled", slots.size(),
+                memoryBytes / 1048576.0, spillLiveBytes / 1048576.0);
+    }
+
+    @Override
+    public synchronized void close() {
+        slots.clear();
+        memoryBytes = 0;
+        spillLiveBytes = 0;
+        if (spill != null) {
+            try {
+                spill.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                System.out.println("Could not delete clipboard history file: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package uz.khoshimjonov.quickpeek;
+
+import java.awt.Toolkit;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.FlavorListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Polls the system clipboard for new text on one low-priority daemon thread and hands it to 'onNewText' on
+// that thread. AWT only reports flavour changes, not new text replacing old text, so polling is the portable
+// way to notice a copy. The next poll waits for the callback to return, so a slow callback slows the polling
+// down rather than piling up work. Text longer than 'maxLength' is skipped, and since reading it copies all of
+// it, each oversize read doubles the number of polls skipped after it, up to MAX_BACKOFF_POLLS; a change in
+// the clipboard's flavours, which AWT does report, ends the back-off early.
+public final class ClipboardWatcher implements AutoCloseable {
+    private static final int MAX_BACKOFF_POLLS = 60;
+
+    private final ScheduledExecutorService scheduler;
+    private final int maxLength;
+    private final Consumer<String> onNewText;
+    private final Clipboard clipboard;
+    private final FlavorListener flavorListener = event -> flavorsChanged = true;
+    private volatile boolean flavorsChanged;
+    private volatile Thread callbackThread;
+    private int lastLength = -1;
+    private int lastHash;
+    private int backoffPolls;
+    private int skippedPolls;
+
+    public ClipboardWatcher(long intervalMillis, int maxLength, Consumer<String> onNewText) {
+        this.maxLength = maxLength;
+        this.onNewText = onNewText;
+        this.clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+        clipboard.addFlavorListener(flavorListener);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quickpeek-clipboard");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        if (skippedPolls < backoffPolls && !flavorsChanged) {
+            skippedPolls++;
+            return;
+        }
+        flavorsChanged = false;
+        skippedPolls = 0;
+        String text;
+        try {
+            if (!clipboard.isDataFlavorAvailable(DataFlavor.stringFlavor)) {
+                return;
+            }
+            text = (String) clipboard.getData(DataFlavor.stringFlavor);
+        } catch (Exception e) {
+            // the owner may hold the clipboard while copying; try again on the next poll
+            return;
+        }
+        if (text == null) {
+            return;
+        }
+        if (text.length() > maxLength) {
+            backoffPolls = Math.min(MAX_BACKOFF_POLLS, Math.max(1, backoffPolls * 2));
+            return;
+        }
+        backoffPolls = 0;
+        int hash = text.hashCode();
+        if (text.length() == lastLength && hash == lastHash) {
+            return;
+        }
+        lastLength = text.length();
+        lastHash = hash;
+        callbackThread = Thread.currentThread();
+        try {
+            onNewText.accept(text);
+        } catch (Exception e) {
+            // an exception would cancel the schedule
+            System.out.println("Clipboard watcher callback failed: " + e.getMessage());
+        } finally {
+            callbackThread = null;
+            Thread.interrupted();
+        }
+    }
+
+    // Interrupts the callback if one is running, for when the user asks for something more urgent. The
+    // text it was working on counts as seen, so it is not picked up again.
+    public void cancelCallback() {
+        Thread thread = callbackThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        clipboard.removeFlavorListener(flavorListener);
+        scheduler.shutdownNow();
+    }
+}
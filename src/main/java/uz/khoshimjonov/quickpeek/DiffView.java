@@ -0,0 +1,128 @@
+package uz.khoshimjonov.quickpeek;
+
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import uz.khoshimjonov.quickpeek.diff.DiffRow;
+import uz.khoshimjonov.quickpeek.diff.LineDiff;
+
+import java.util.List;
+
+// Side-by-side view of a LineDiff, the entry compared against on the left. One list row per diff row, so only the rows
+// on screen have cells; unchanged runs are single collapsed rows that expand on click or Enter.
+public class DiffView extends ListView<DiffRow> {
+    private static final String COMPARING = "Comparing…";
+
+    private final Label placeholder = new Label(COMPARING);
+    private LineDiff diff;
+
+    public DiffView() {
+        getStyleClass().add("diff-view");
+        getStylesheets().add(DiffView.class.getResource("viewer.css").toExternalForm());
+        setCellFactory(listView -> new DiffCell());
+        setPlaceholder(placeholder);
+        setOnMouseClicked(event -> expand(getSelectionModel().getSelectedIndex()));
+        setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                expand(getSelectionModel().getSelectedIndex());
+                event.consume();
+            }
+        });
+    }
+
+    public void setDiff(LineDiff diff) {
+        this.diff = diff;
+        placeholder.setText(COMPARING);
+        if (diff == null) {
+            getItems().clear();
+            return;
+        }
+        getItems().setAll(diff.rows());
+        // start on the first change rather than on a collapsed run
+        for (int i = 0; i < getItems().size(); i++) {
+            if (getItems().get(i).kind() != DiffRow.Kind.SAME && getItems().get(i).kind() != DiffRow.Kind.COLLAPSED) {
+                getSelectionModel().select(i);
+                scrollTo(Math.max(0, i - LineDiff.CONTEXT_LINES));
+                return;
+            }
+        }
+    }
+
+    // Shown instead of a diff, e.g. when an entry could not be read back
+    public void showMessage(String message) {
+        setDiff(null);
+        placeholder.setText(message);
+    }
+
+    private void expand(int index) {
+        if (diff == null || index < 0 || index >= getItems().size()) {
+            return;
+        }
+        DiffRow row = getItems().get(index);
+        if (row.kind() == DiffRow.Kind.COLLAPSED) {
+            List<DiffRow> expanded = diff.expand(row);
+            getItems().remove(index);
+            getItems().addAll(index, expanded);
+        }
+    }
+
+    private class DiffCell extends ListCell<DiffRow> {
+        private final Label left = new Label();
+        private final Label right = new Label();
+        private final HBox sides = new HBox(left, right);
+
+        DiffCell() {
+            getStyleClass().add("diff-cell");
+            left.setMaxWidth(Double.MAX_VALUE);
+            right.setMaxWidth(Double.MAX_VALUE);
+            HBox.setHgrow(left, Priority.ALWAYS);
+            HBox.setHgrow(right, Priority.ALWAYS);
+            left.prefWidthProperty().bind(widthProperty().divide(2));
+            right.prefWidthProperty().bind(widthProperty().divide(2));
+        }
+
+        @Override
+        protected void updateItem(DiffRow row, boolean empty) {
+            super.updateItem(row, empty);
+            left.getStyleClass().removeAll("diff-deleted", "diff-inserted", "diff-changed", "diff-empty");
+            right.getStyleClass().removeAll("diff-deleted", "diff-inserted", "diff-changed", "diff-empty");
+            if (empty || row == null || diff == null) {
+                setText(null);
+                setGraphic(null);
+                return;
+            }
+            if (row.kind() == DiffRow.Kind.COLLAPSED) {
+                setGraphic(null);
+                setText("      ⋯ " + row.lines() + " unchanged lines");
+                return;
+            }
+            setText(null);
+            left.setText(row.leftLine() >= 0 ? side(row.leftLine(), diff.leftLine(row.leftLine())) : "");
+            right.setText(row.rightLine() >= 0 ? side(row.rightLine(), diff.rightLine(row.rightLine())) : "");
+            switch (row.kind()) {
+                case CHANGED -> {
+                    left.getStyleClass().add("diff-changed");
+                    right.getStyleClass().add("diff-changed");
+                }
+                case DELETED -> {
+                    left.getStyleClass().add("diff-deleted");
+                    right.getStyleClass().add("diff-empty");
+                }
+                case INSERTED -> {
+                    left.getStyleClass().add("diff-empty");
+                    right.getStyleClass().add("diff-inserted");
+                }
+                default -> {
+                }
+            }
+            setGraphic(sides);
+        }
+
+        private String side(int line, String text) {
+            return String.format("%5d  %s", line + 1, text);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package uz.khoshimjonov.quickpeek;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+// Text ready to be shown in the viewer, with the line index built off the FX thread
+public record DisplayResult(String text, LineIndex lineIndex, ContentType contentType) {
+
+    // Approximate heap footprint: UTF-16 text plus the line start array
+    public long retainedBytes() {
+        return 64 + 2L * text.length() + lineIndex.retainedBytes();
+    }
+}
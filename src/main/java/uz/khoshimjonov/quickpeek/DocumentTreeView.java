@@ -0,0 +1,81 @@
+package uz.khoshimjonov.quickpeek;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeCell;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import uz.khoshimjonov.quickpeek.outline.Outline;
+import uz.khoshimjonov.quickpeek.outline.OutlineNode;
+
+import java.util.List;
+
+public class DocumentTreeView extends TreeView<OutlineNode> {
+
+    public DocumentTreeView() {
+        getStyleClass().add("document-tree");
+        getStylesheets().add(DocumentTreeView.class.getResource("viewer.css").toExternalForm());
+        setCellFactory(treeView -> new TreeCell<>() {
+            @Override
+            protected void updateItem(OutlineNode node, boolean empty) {
+                super.updateItem(node, empty);
+                setText(empty || node == null ? null : node.getLabel());
+            }
+        });
+    }
+
+    // rootChildren may be supplied when they were already scanned off the FX thread
+    public void setOutline(Outline outline, OutlineNode root, List<OutlineNode> rootChildren) {
+        if (outline == null) {
+            setRoot(null);
+            return;
+        }
+        OutlineItem rootItem = new OutlineItem(outline, root);
+        if (rootChildren != null) {
+            rootItem.load(rootChildren);
+        }
+        rootItem.setExpanded(true);
+        setRoot(rootItem);
+        getSelectionModel().select(0);
+    }
+
+    public OutlineNode getSelectedNode() {
+        TreeItem<OutlineNode> selected = getSelectionModel().getSelectedItem();
+        return selected != null ? selected.getValue() : null;
+    }
+
+    // Children are created on first expansion and dropped again on collapse, so the items in memory are
+    // only those of the currently open nodes
+    private static class OutlineItem extends TreeItem<OutlineNode> {
+        private final Outline outline;
+        private boolean loaded;
+
+        OutlineItem(Outline outline, OutlineNode node) {
+            super(node);
+            this.outline = outline;
+            expandedProperty().addListener((obs, wasExpanded, isExpanded) -> {
+                if (!isExpanded && loaded) {
+                    loaded = false;
+                    super.getChildren().clear();
+                }
+            });
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return getValue().isLeaf();
+        }
+
+        @Override
+        public ObservableList<TreeItem<OutlineNode>> getChildren() {
+            if (!loaded) {
+                load(outline.children(getValue()));
+            }
+            return super.getChildren();
+        }
+
+        void load(List<OutlineNode> children) {
+            loaded = true;
+            super.getChildren().setAll(children.stream().map(child -> new OutlineItem(outline, child)).toList());
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package uz.khoshimjonov.quickpeek;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.OverrunStyle;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.TextField;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.text.Font;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+import uz.khoshimjonov.quickpeek.highlight.Lexer;
+import uz.khoshimjonov.quickpeek.highlight.LineTokens;
+import uz.khoshimjonov.quickpeek.highlight.SyntaxHighlighter;
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DocumentView extends ListView<String> {
+    private static final int MAX_RENDERED_LINE_LENGTH = 10_000;
+    private static final double CELL_HORIZONTAL_PADDING = 16;
+    private static final double SCROLLBAR_ALLOWANCE = 12;
+    private static final Color DEFAULT_TEXT_COLOR = Color.WHITE;
+    private static final Color MATCH_COLOR = Color.rgb(234, 92, 0, 0.35);
+    private static final Color CURRENT_MATCH_COLOR = Color.rgb(255, 200, 0, 0.55);
+    private static final int MAX_MATCHES_PER_LINE = 500;
+
+    private final Font font = resolveFont();
+    private final double charWidth;
+    private final double lineHeight;
+    private final ListChangeListener<String> documentChangeListener = this::documentChanged;
+    private TextDocument document;
+    private SyntaxHighlighter highlighter;
+    private double documentWidth;
+    private SearchHits searchHits = SearchHits.EMPTY;
+    private int currentSearchHit = -1;
+
+    public DocumentView() {
+        getStyleClass().add("document-view");
+        getStylesheets().add(DocumentView.class.getResource("viewer.css").toExternalForm());
+
+        Text probe = new Text("W");
+        probe.setFont(font);
+        charWidth = probe.getLayoutBounds().getWidth();
+        lineHeight = Math.ceil(probe.getLayoutBounds().getHeight()) + 2;
+
+        setFixedCellSize(lineHeight);
+        setEditable(true);
+        getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        setCellFactory(listView -> new LineCell());
+        addEventHandler(KeyEvent.KEY_PRESSED, this::handleKeyPressed);
+
+        setDocument(new TextDocument(""));
+    }
+
+    private static Font resolveFont() {
+        List<String> families = Font.getFamilies();
+        for (String family : List.of("Consolas", "Monaco", "DejaVu Sans Mono", "Liberation Mono")) {
+            if (families.contains(family)) {
+                return Font.font(family, 16);
+            }
+        }
+        return Font.font("Monospaced", 16);
+    }
+
+    public TextDocument getDocument() {
+        return document;
+    }
+
+    public void setDocument(TextDocument document) {
+        if (this.document != null) {
+            this.document.removeListener(documentChangeListener);
+        }
+        this.document = document;
+        document.addListener(documentChangeListener);
+
+        Lexer lexer = SyntaxHighlighter.lexerFor(document.getContentType());
+        highlighter = lexer != null ? new SyntaxHighlighter(lexer, document::get) : null;
+
+        updateDocumentWidth();
+        searchHits = SearchHits.EMPTY;
+        currentSearchHit = -1;
+        getSelectionModel().clearSelection();
+        setItems(document);
+        scrollTo(0);
+    }
+
+    private void updateDocumentWidth() {
+        int columns = Math.min(MAX_RENDERED_LINE_LENGTH, document.getLineIndex().maxLineLength());
+        documentWidth = columns * charWidth + CELL_HORIZONTAL_PADDING;
+    }
+
+    private void documentChanged(ListChangeListener.Change<? extends String> change) {
+        updateDocumentWidth();
+        // hit offsets no longer line up with the text
+        searchHits = SearchHits.EMPTY;
+        currentSearchHit = -1;
+        if (highlighter == null) {
+            return;
+        }
+        while (change.next()) {
+            highlighter.linesReplaced(change.getFrom(), change.getRemovedSize(), change.getAddedSize());
+        }
+    }
+
+    // Highlights every hit on the visible lines, the current one in a stronger colour
+    public void setSearchHits(SearchHits hits, int current) {
+        searchHits = hits != null ? hits : SearchHits.EMPTY;
+        currentSearchHit = current;
+        refresh();
+    }
+
+    public SearchHits getSearchHits() {
+        return searchHits;
+    }
+
+    public void setPreferredViewport(int columns, int rows) {
+        setPrefWidth(columns * charWidth + CELL_HORIZONTAL_PADDING + SCROLLBAR_ALLOWANCE);
+        setPrefHeight(rows * lineHeight + SCROLLBAR_ALLOWANCE);
+    }
+
+    public void selectRange(int offset, int length) {
+        LineIndex lineIndex = document.getLineIndex();
+        int firstLine = lineIndex.lineOf(offset);
+        int lastLine = lineIndex.lineOf(Math.max(offset, offset + length - 1));
+
+        getSelectionModel().clearSelection();
+        getSelectionModel().selectRange(firstLine, lastLine + 1);
+        getFocusModel().focus(firstLine);
+
+        int visibleRows = Math.max(1, (int) (getHeight() / lineHeight));
+        scrollTo(Math.max(0, firstLine - visibleRows / 2));
+    }
+
+    private void handleKeyPressed(KeyEvent event) {
+        if (event.isShortcutDown() && event.getCode() == KeyCode.C) {
+            copySelectedLines();
+            event.consume();
+        }
+    }
+
+    private void copySelectedLines() {
+        List<Integer> selected = getSelectionModel().getSelectedIndices().stream().sorted().toList();
+        if (selected.isEmpty()) {
+            return;
+        }
+        StringBuilder copied = new StringBuilder();
+        for (int line : selected) {
+            if (!copied.isEmpty()) {
+                copied.append('\n');
+            }
+            copied.append(document.get(line));
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(copied.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    private class LineCell extends ListCell<String> {
+        private final TextFlow highlightedLine = new TextFlow();
+        private final Path matchShapes = new Path();
+        private final Path currentMatchShape = new Path();
+        private final Pane lineGraphic = new Pane(matchShapes, currentMatchShape, highlightedLine) {
+            // match shapes can only be measured once the text flow has been laid out
+            @Override
+            protected void layoutChildren() {
+                super.layoutChildren();
+                List<PathElement> elements = new ArrayList<>();
+                for (int i = 0; i < matchCount; i++) {
+                    elements.addAll(List.of(highlightedLine.rangeShape(matchRanges[2 * i], matchRanges[2 * i + 1])));
+                }
+                matchShapes.getElements().setAll(elements);
+                currentMatchShape.getElements().setAll(currentMatchStart >= 0
+                        ? highlightedLine.rangeShape(currentMatchStart, currentMatchEnd)
+                        : new PathElement[0]);
+            }
+        };
+        private final int[] matchRanges = new int[2 * MAX_MATCHES_PER_LINE];
+        private int matchCount;
+        private int currentMatchStart = -1;
+        private int currentMatchEnd;
+        private TextField editor;
+
+        LineCell() {
+            setFont(font);
+            setTextOverrun(OverrunStyle.CLIP);
+            highlightedLine.setMinWidth(Region.USE_PREF_SIZE);
+            for (Path shape : List.of(matchShapes, currentMatchShape)) {
+                shape.setManaged(false);
+                shape.setStroke(null);
+            }
+            matchShapes.setFill(MATCH_COLOR);
+            currentMatchShape.setFill(CURRENT_MATCH_COLOR);
+        }
+
+        @Override
+        protected void updateItem(String line, boolean empty) {
+            super.updateItem(line, empty);
+            setPrefWidth(documentWidth);
+            if (empty || line == null) {
+                setText(null);
+                setGraphic(null);
+            } else if (isEditing()) {
+                editor.setText(line);
+                setText(null);
+                setGraphic(editor);
+            } else {
+                String visibleLine = line.length() > MAX_RENDERED_LINE_LENGTH
+                        ? line.substring(0, MAX_RENDERED_LINE_LENGTH) + "…"
+                        : line;
+                collectMatches(getIndex(), Math.min(line.length(), MAX_RENDERED_LINE_LENGTH));
+                if (highlighter == null && matchCount == 0 && currentMatchStart < 0) {
+                    setText(visibleLine);
+                    setGraphic(null);
+                } else {
+                    if (highlighter != null) {
+                        // lexed in full so the state carried to the next line matches stateBefore's; tokens
+                        // past the cut are dropped
+                        renderTokens(visibleLine, highlighter.tokens(getIndex(), line),
+                                Math.min(line.length(), MAX_RENDERED_LINE_LENGTH));
+                    } else {
+                        trimSegments(setSegment(0, visibleLine, DEFAULT_TEXT_COLOR));
+                    }
+                    setText(null);
+                    setGraphic(lineGraphic);
+                    lineGraphic.requestLayout();
+                }
+            }
+        }
+
+        // Tokens are cut at 'limit'; the rest of 'line', such as the truncation mark, is drawn plain
+        private void renderTokens(String line, LineTokens tokens, int limit) {
+            int segments = 0;
+            int position = 0;
+            for (int token = 0; token < tokens.size(); token++) {
+                int start = tokens.start(token);
+                if (start >= limit) {
+                    break;
+                }
+                int end = Math.min(tokens.end(token), limit);
+                if (start > position) {
+                    segments = setSegment(segments, line.substring(position, start), DEFAULT_TEXT_COLOR);
+                }
+                segments = setSegment(segments, line.substring(start, end), tokens.type(token).color());
+                position = end;
+            }
+            if (position < line.length()) {
+                segments = setSegment(segments, line.substring(position), DEFAULT_TEXT_COLOR);
+            }
+
+            trimSegments(segments);
+        }
+
+        private void trimSegments(int segments) {
+            ObservableList<Node> children = highlightedLine.getChildren();
+            if (children.size() > segments) {
+                children.remove(segments, children.size());
+            }
+        }
+
+        // Collects the hits on this line as line-relative ranges, keeping the current hit apart
+        private void collectMatches(int line, int visibleLength) {
+            matchCount = 0;
+            currentMatchStart = -1;
+            if (searchHits.isEmpty()) {
+                return;
+            }
+            int lineStart = document.getLineIndex().lineStart(line);
+            int lineEnd = lineStart + visibleLength;
+            for (int hit = searchHits.firstEndingAfter(lineStart);
+                 hit < searchHits.size() && searchHits.start(hit) < lineEnd; hit++) {
+                int from = Math.max(searchHits.start(hit), lineStart) - lineStart;
+                int to = Math.min(searchHits.end(hit), lineEnd) - lineStart;
+                if (hit == currentSearchHit) {
+                    currentMatchStart = from;
+                    currentMatchEnd = to;
+                } else if (matchCount < MAX_MATCHES_PER_LINE) {
+                    matchRanges[2 * matchCount] = from;
+                    matchRanges[2 * matchCount + 1] = to;
+                    matchCount++;
+                }
+            }
+        }
+
+        // Reuses the cell's existing Text nodes so scrolling does not allocate a new scene graph per line
+        private int setSegment(int index, String segment, Color color) {
+            List<Node> children = highlightedLine.getChildren();
+            Text text;
+            if (index < children.size()) {
+                text = (Text) children.get(index);
+            } else {
+                text = new Text();
+                text.setFont(font);
+                children.add(text);
+            }
+            text.setText(segment);
+            text.setFill(color);
+            return index + 1;
+        }
+
+        @Override
+        public void startEdit() {
+            if (isEmpty()) {
+                return;
+            }
+            super.startEdit();
+            if (editor == null) {
+                editor = createEditor();
+            }
+            editor.setText(getItem());
+            setText(null);
+            setGraphic(editor);
+            editor.requestFocus();
+            editor.positionCaret(0);
+        }
+
+        @Override
+        public void cancelEdit() {
+            super.cancelEdit();
+            updateItem(getItem(), isEmpty());
+        }
+
+        private TextField createEditor() {
+            TextField textField = new TextField();
+            textField.setFont(font);
+            textField.getStyleClass().add("line-editor");
+            textField.setOnAction(event -> {
+                commitEdit(textField.getText());
+                event.consume();
+            });
+            textField.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+                if (event.getCode() == KeyCode.ESCAPE) {
+                    cancelEdit();
+                    event.consume();
+                }
+            });
+            return textField;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uz.khoshimjonov.quickpeek;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Tracks how much of a growing file has been shown and reads what was appended since. Appending is told
+// apart from rewriting by checking that the last bytes already read are still in place.
+public final class FileTail {
+    private static final int CHECK_BYTES = 256;
+
+    private final Path file;
+    private long offset;
+    private byte[] check;
+    private boolean atLineStart;
+
+    // 'content' is what the file held when it was opened
+    public FileTail(Path file, byte[] content) {
+        this.file = file;
+        this.offset = content.length;
+        this.check = Arrays.copyOfRange(content, Math.max(0, content.length - CHECK_BYTES), content.length);
+        this.atLineStart = content.length == 0 || content[content.length - 1] == '\n';
+    }
+
+    // New complete lines, without the final line terminator. 'continuesLine' is set when the file did not
+    // end with a line terminator when it was last read, so the text continues the last line shown.
+    public record Appended(String text, boolean continuesLine) {
+    }
+
+    // Returns null when the file was truncated or rewritten, and an empty text while no complete line
+    // has been appended
+    public Appended readAppended() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset || !Arrays.equals(check, read(channel, offset - check.length, check.length))) {
+                return null;
+            }
+            if (size == offset || size - offset > Integer.MAX_VALUE) {
+                return new Appended("", false);
+            }
+            byte[] added = read(channel, offset, (int) (size - offset));
+            int lastNewLine = added.length - 1;
+            while (lastNewLine >= 0 && added[lastNewLine] != '\n') {
+                lastNewLine--;
+            }
+            if (lastNewLine < 0) {
+                return new Appended("", false);
+            }
+            boolean continuesLine = !atLineStart;
+            String text = new String(added, 0, lastNewLine, StandardCharsets.UTF_8);
+            consumedAt(channel, offset + lastNewLine + 1);
+            return new Appended(text.endsWith("\r") ? text.substring(0, text.length() - 1) : text, continuesLine);
+        }
+    }
+
+    private void consumedAt(FileChannel channel, long newOffset) throws IOException {
+        int length = (int) Math.min(CHECK_BYTES, newOffset);
+        offset = newOffset;
+        check = read(channel, newOffset - length, length);
+        atLineStart = true;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position() == length ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
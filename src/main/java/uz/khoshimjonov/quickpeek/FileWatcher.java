@@ -0,0 +1,63 @@
+package uz.khoshimjonov.quickpeek;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+// Watches one file through a WatchService on its directory and calls back on a daemon thread whenever the
+// file is created or modified. Editors often write several events per save, so callers should coalesce.
+public final class FileWatcher implements AutoCloseable {
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public FileWatcher(Path file, Runnable onChange) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path directory = absolute.getParent();
+        Path name = absolute.getFileName();
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        thread = new Thread(() -> watch(name, onChange), "quickpeek-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch(Path name, Runnable onChange) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                }
+                if (changed) {
+                    onChange.run();
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.out.println("Could not close file watcher: " + e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,117 @@
+package uz.khoshimjonov.quickpeek;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Formatted results of recently viewed content, so opening the same clipboard again skips formatting.
+// Bounded by the approximate heap size of the cached results rather than by their number, since one large
+// payload can outweigh hundreds of small ones. Shared by the formatting workers and the FX thread.
+public final class FormatCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Key, DisplayResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public FormatCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized DisplayResult get(Key key) {
+        DisplayResult result = entries.get(key);
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    // Unlike get, neither counts as a hit or miss nor refreshes the entry
+    public synchronized boolean contains(Key key) {
+        return entries.containsKey(key);
+    }
+
+    // Results larger than the whole budget are not cached
+    public synchronized void put(Key key, DisplayResult result) {
+        long size = result.retainedBytes();
+        if (size > maxBytes) {
+            return;
+        }
+        DisplayResult previous = entries.put(key, result);
+        if (previous != null) {
+            bytes -= previous.retainedBytes();
+        }
+        bytes += size;
+        trimTo(maxBytes);
+    }
+
+    // Evicts least recently used entries until the cache fits in 'limit' bytes
+    public synchronized void trimTo(long limit) {
+        Iterator<DisplayResult> eldest = entries.values().iterator();
+        while (bytes > limit && eldest.hasNext()) {
+            bytes -= eldest.next().retainedBytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hits, %d misses, %d evictions, %d entries, %.1f of %.1f MB",
+                hits, misses, evictions, entries.size(), bytes / 1048576.0, maxBytes / 1048576.0);
+    }
+
+    // A 64-bit hash plus the length of the content, and the type it was detected as. Keeping the content
+    // itself would double the memory held for every entry.
+    public record Key(long hash, int length, ContentType contentType) {
+
+        public static Key of(String content, ContentType contentType) {
+            return new Key(hash(content), content.length(), contentType);
+        }
+
+        // Mixes four chars per multiplication, so hashing costs a small fraction of formatting
+        static long hash(String content) {
+            long h = 0x9E3779B97F4A7C15L ^ content.length();
+            int length = content.length();
+            int i = 0;
+            for (; i + 4 <= length; i += 4) {
+                long block = content.charAt(i)
+                        | (long) content.charAt(i + 1) << 16
+                        | (long) content.charAt(i + 2) << 32
+                        | (long) content.charAt(i + 3) << 48;
+                h = Long.rotateLeft(h ^ block * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+            }
+            for (; i < length; i++) {
+                h = Long.rotateLeft(h ^ content.charAt(i) * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+            }
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
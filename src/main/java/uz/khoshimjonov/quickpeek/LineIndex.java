@@ -0,0 +1,94 @@
+package uz.khoshimjonov.quickpeek;
+
+import java.util.Arrays;
+
+public final class LineIndex {
+    private final int[] lineStarts;
+    private final int lineCount;
+    private final int length;
+    private final int maxLineLength;
+
+    private LineIndex(int[] lineStarts, int lineCount, int length, int maxLineLength) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.length = length;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public static LineIndex of(CharSequence text) {
+        int length = text.length();
+        int[] starts = new int[Math.max(16, length / 32)];
+        int count = 1;
+        int maxLineLength = 0;
+        int lineStart = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                maxLineLength = Math.max(maxLineLength, i - lineStart);
+                lineStart = i + 1;
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = lineStart;
+            }
+        }
+        maxLineLength = Math.max(maxLineLength, length - lineStart);
+
+        return new LineIndex(starts, count, length, maxLineLength);
+    }
+
+    // Index of 'text', which must start with the text this index was built for. The line start array is
+    // shared when it has room: this index only ever reads its own first lineCount entries.
+    public LineIndex appended(CharSequence text) {
+        int[] starts = lineStarts;
+        int count = lineCount;
+        int lineStart = lineStarts[lineCount - 1];
+        int maxLineLength = this.maxLineLength;
+        int newLength = text.length();
+
+        for (int i = length; i < newLength; i++) {
+            if (text.charAt(i) == '\n') {
+                maxLineLength = Math.max(maxLineLength, i - lineStart);
+                lineStart = i + 1;
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = lineStart;
+            }
+        }
+        maxLineLength = Math.max(maxLineLength, newLength - lineStart);
+
+        return new LineIndex(starts, count, newLength, maxLineLength);
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int maxLineLength() {
+        return maxLineLength;
+    }
+
+    public int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    // excludes the line terminator
+    public int lineEnd(int line) {
+        return line + 1 < lineCount ? lineStarts[line + 1] - 1 : length;
+    }
+
+    // Approximate heap footprint, counting the whole start array even when it is shared with other indexes
+    public long retainedBytes() {
+        return 32 + 16 + 4L * lineStarts.length;
+    }
+
+    public int lineOf(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+}
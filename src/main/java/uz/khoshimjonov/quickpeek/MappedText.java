@@ -0,0 +1,63 @@
+package uz.khoshimjonov.quickpeek;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only text backed by a memory-mapped UTF-16BE file, for documents too large for the heap. Every char
+// has a fixed position in the file, so lines are decoded only when a cell shows them and the pages behind
+// them are loaded and dropped by the OS.
+public final class MappedText implements CharSequence {
+    private final Path file;
+    private final CharBuffer chars;
+
+    private MappedText(Path file, CharBuffer chars) {
+        this.file = file;
+        this.chars = chars;
+    }
+
+    // A single mapping covers at most 2 GB, i.e. about a billion chars
+    public static MappedText map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Formatted content is larger than 2 GB");
+            }
+            return new MappedText(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asCharBuffer());
+        }
+    }
+
+    @Override
+    public int length() {
+        return chars.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars.get(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return chars.subSequence(start, end);
+    }
+
+    // Copies the whole text onto the heap, which is what this class exists to avoid
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+
+    // The mapping stays valid until it is garbage collected; where the file cannot be deleted while mapped
+    // it is removed on exit instead
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -1,94 +1,280 @@
 package uz.khoshimjonov.quickpeek;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.github.kwhat.jnativehook.GlobalScreen;
 import com.github.kwhat.jnativehook.NativeHookException;
 import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
 import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.Tooltip;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.TransferMode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
-
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javafx.util.Duration;
+import uz.khoshimjonov.quickpeek.diff.Canonicalizer;
+import uz.khoshimjonov.quickpeek.diff.LineDiff;
+import uz.khoshimjonov.quickpeek.format.ContentType;
+import uz.khoshimjonov.quickpeek.format.FormatEngine;
+import uz.khoshimjonov.quickpeek.format.FormatResult;
+import uz.khoshimjonov.quickpeek.format.RecordFormatter;
+import uz.khoshimjonov.quickpeek.format.StreamingFormatter;
+import uz.khoshimjonov.quickpeek.metrics.LatencyStage;
+import uz.khoshimjonov.quickpeek.metrics.LatencyStats;
+import uz.khoshimjonov.quickpeek.metrics.LatencyTimer;
+import uz.khoshimjonov.quickpeek.metrics.MemoryUsage;
+import uz.khoshimjonov.quickpeek.outline.Outline;
+import uz.khoshimjonov.quickpeek.outline.OutlineNode;
+import uz.khoshimjonov.quickpeek.query.PathQueryEngine;
+import uz.khoshimjonov.quickpeek.query.PathQueryResult;
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+import uz.khoshimjonov.quickpeek.search.SearchIndex;
+import uz.khoshimjonov.quickpeek.search.SearchQuery;
+
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.image.BufferedImage;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.PatternSyntaxException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class QuickPeekApplication extends Application implements NativeKeyListener {
+    // Content above MAX_CONTENT_SIZE is formatted through temp files and shown memory-mapped
     private static final int MAX_CONTENT_SIZE = 10 * 1024 * 1024;
+    private static final long MAX_LARGE_CONTENT_SIZE = 512L * 1024 * 1024;
     private static final String APP_NAME = "JSON/XML Viewer";
-
-    private final JavaObjectFormatter javaObjectFormatter = new JavaObjectFormatter();
+    private static final String FORMATTING_PLACEHOLDER = "Formatting…";
+    private static final String WARM_UP_SAMPLE = "{\"id\": 1, \"items\": [{\"name\": \"a\", \"price\": 1.5}]}";
+    private static final String[] SAMPLES = {WARM_UP_SAMPLE, "<a><b>1</b></a>", "Sample(id=1, name=a)"};
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+    private static final int BACKGROUND_SEARCH_THRESHOLD = 1_000_000;
+    private static final int RECORD_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final long FORMAT_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final long IDLE_FORMAT_CACHE_BYTES = 8L * 1024 * 1024;
+    private static final Duration IDLE_TRIM_DELAY = Duration.seconds(30);
+    private static final String LOW_MEMORY_FLAG = "--low-memory";
+    private static final String VERBOSE_FLAG = "--verbose";
+    private static final String TRAINING_FLAG = "--train";
+    private static final String PREFORMAT_FLAG = "--preformat";
+    private static final long PREFORMAT_POLL_MILLIS = 1000;
+    private static final int PREFORMAT_MAX_SIZE = 2 * 1024 * 1024;
+    private static final String HISTORY_SPILL_FLAG = "--history-spill";
+    private static final int HISTORY_ENTRIES = 100;
+    private static final long HISTORY_MEMORY_BYTES = 16L * 1024 * 1024;
+    private static final long HISTORY_SPILL_BYTES = 256L * 1024 * 1024;
+    // Past this a diff stops looking for the smallest edit and shows the rest as replaced
+    private static final long DIFF_TIMEOUT_MILLIS = 2000;
+
+    // Created on first use and, in low-memory mode, dropped again while idle
+    private FormatEngine formatEngine;
+    private StreamingFormatter streamingFormatter;
+    private boolean lowMemory;
+    // Set once in start(), before any worker runs
+    private boolean verbose;
+    // The --train workload, which is also what benchmarks/startup.sh times
+    private boolean training;
+    private ClipboardWatcher clipboardWatcher;
+    // Runs the record batches of pre-formatting, so that they never queue behind or ahead of a format the user
+    // is waiting for
+    private ExecutorService preformatExecutor;
+    private ClipboardHistory history = new ClipboardHistory(HISTORY_ENTRIES, HISTORY_MEMORY_BYTES);
+    // Entry of the history shown in the viewer; new content is entry 0 once it has been added
+    private int historyIndex;
+    private final PauseTransition idleTrim = new PauseTransition(IDLE_TRIM_DELAY);
+    private final FormatCache formatCache = new FormatCache(FORMAT_CACHE_BYTES);
+    private final LatencyStats latencyStats = new LatencyStats();
+    private LatencyTimer paintTimer;
+    private boolean firstPopupShown;
+    private volatile CountDownLatch trainingPaint;
+    private final ExecutorService formatExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "quickpeek-format");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> formatJob;
+    private long formatGeneration = 0;
+    private int viewportColumns;
+    private int viewportRows;
 
     private volatile Stage viewerStage;
     private volatile boolean isShuttingDown = false;
-    private TextArea textArea;
+    private DocumentView documentView;
+    private MappedText mappedText;
+    private FileWatcher fileWatcher;
+    private FileTail fileTail;
+    private Path watchedFile;
+    private boolean watchRefreshPending;
+    private DocumentTreeView documentTreeView;
+    private VBox viewerRoot;
+    private boolean treeVisible = false;
+    private DiffView diffView;
+    private boolean diffVisible = false;
+    private Future<?> diffJob;
+    // The entry Ctrl+D compares against instead of the previous one; kept across popups
+    private FormatCache.Key diffMark;
+    private Label statusLabel;
+    private final PauseTransition statusTimeout = new PauseTransition(Duration.seconds(3));
+    private CharSequence outlineSource;
+    private Future<?> outlineJob;
+    private final EventHandler<KeyEvent> viewerKeyFilter = this::handleViewerKeyPressed;
+    private final ChangeListener<Boolean> viewerFocusListener = (obs, wasFocused, isNowFocused) -> {
+        if (!isNowFocused) {
+            Platform.runLater(this::hideViewer);
+        }
+    };
     private VBox searchBox;
     private TextField searchField;
     private Label resultLabel;
-    private final List<Integer> searchResults = new ArrayList<>();
+    private ToggleButton regexToggle;
+    private ToggleButton wholeWordToggle;
+    private ToggleButton pathToggle;
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    private SearchHits searchHits = SearchHits.EMPTY;
+    // Shown after the hit count, e.g. when a path query stopped at invalid JSON
+    private String searchHitsNote;
     private int currentSearchIndex = 0;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Future<?> searchJob;
+    private long searchGeneration = 0;
+    private SearchIndex searchIndex;
+    private TextDocument searchIndexDocument;
+    private int searchIndexVersion;
+    private PathQueryEngine pathQueryEngine;
+    private TextDocument pathQueryDocument;
+    private int pathQueryVersion;
     private TrayIcon trayIcon;
     private boolean searchVisible = false;
 
 
     @Override
     public void start(Stage primaryStage) {
-        setupObjectMapper();
+        lowMemory = getParameters().getRaw().contains(LOW_MEMORY_FLAG);
+        verbose = getParameters().getRaw().contains(VERBOSE_FLAG);
+        training = getParameters().getRaw().contains(TRAINING_FLAG);
         setupTrayIcon();
+        if (training) {
+            System.out.println("Startup: tray ready after " + millisSinceLaunch() + " ms");
+        }
         setupGlobalHotkey();
+        idleTrim.setOnFinished(e -> trimIdleMemory());
+        if (getParameters().getRaw().contains(HISTORY_SPILL_FLAG)) {
+            try {
+                history = new ClipboardHistory(HISTORY_ENTRIES, HISTORY_MEMORY_BYTES, HISTORY_SPILL_BYTES);
+            } catch (IOException e) {
+                System.out.println("Could not create clipboard history file, keeping history in memory: " + e.getMessage());
+            }
+        }
+        if (getParameters().getRaw().contains(PREFORMAT_FLAG)) {
+            preformatExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "quickpeek-preformat");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            clipboardWatcher = new ClipboardWatcher(PREFORMAT_POLL_MILLIS, PREFORMAT_MAX_SIZE, this::preformat);
+        }
+        // Low-memory mode builds the viewer and the formatters on the first hotkey press instead
+        if (!lowMemory) {
+            warmUpViewer();
+        }
 
         primaryStage.hide();
         Platform.setImplicitExit(false);
 
         System.out.println("JSON/XML Viewer is running. Press Ctrl+Shift+Y to view clipboard content.");
+        if (training) {
+            runTraining();
+        }
+    }
+
+    // Per-popup diagnostics, only logged with --verbose
+    private void debug(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+
+    // Milliseconds since the JVM process was launched, or -1 where the OS does not report it
+    private static long millisSinceLaunch() {
+        return ProcessHandle.current().info().startInstant()
+                .map(launched -> System.currentTimeMillis() - launched.toEpochMilli())
+                .orElse(-1L);
+    }
+
+    // The workload the class-data-sharing archive is recorded from (see the appcds profile in pom.xml): the
+    // samples are shown one after another the way the hotkey shows clipboard content, then the viewer is
+    // closed and the process exits
+    private void runTraining() {
+        Thread trainer = new Thread(() -> {
+            try {
+                getClipboardText();
+                for (String sample : SAMPLES) {
+                    CountDownLatch painted = new CountDownLatch(1);
+                    trainingPaint = painted;
+                    Platform.runLater(() -> {
+                        paintTimer = latencyStats.start(LatencyStage.HOTKEY_TO_PAINT);
+                        showViewer(sample);
+                    });
+                    if (!painted.await(30, TimeUnit.SECONDS)) {
+                        System.out.println("Training: sample was not shown within 30 s");
+                    }
+                }
+                CountDownLatch hidden = new CountDownLatch(1);
+                Platform.runLater(() -> {
+                    hideViewer();
+                    hidden.countDown();
+                });
+                hidden.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Platform.exit();
+            System.exit(0);
+        }, "quickpeek-training");
+        trainer.setDaemon(true);
+        trainer.start();
     }
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(QuickPeekCli.run(java.util.Arrays.copyOfRange(args, 1, args.length)));
+        }
         System.setProperty("java.awt.headless", "false");
         System.setProperty("prism.lcdtext", "false");
         launch(args);
     }
 
-    private void setupObjectMapper() {
-        objectMapper.getFactory().setCodec(objectMapper);
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        objectMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
-    }
-
     private void setupTrayIcon() {
         if (!SystemTray.isSupported()) {
             System.out.println("SystemTray is not supported");
@@ -108,24 +294,22 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
             });
 
             MenuItem showItem = new MenuItem("Show Viewer");
-            showItem.addActionListener(e -> Platform.runLater(() -> {
-                String clipboardText = getClipboardText();
-                if (clipboardText != null && !clipboardText.trim().isEmpty()) {
-                    showViewer(clipboardText);
-                }
-            }));
+            showItem.addActionListener(e -> showClipboardViewer());
+
+            MenuItem openItem = new MenuItem("Open File...");
+            openItem.addActionListener(e -> Platform.runLater(this::chooseFile));
+
+            MenuItem statsItem = new MenuItem("Latency Stats");
+            statsItem.addActionListener(e -> Platform.runLater(this::showLatencyStats));
 
             popup.add(showItem);
+            popup.add(openItem);
+            popup.add(statsItem);
             popup.add(exitItem);
 
             trayIcon = new TrayIcon(image, "JSON/XML Viewer", popup);
             trayIcon.setImageAutoSize(true);
-            trayIcon.addActionListener(e -> Platform.runLater(() -> {
-                String clipboardText = getClipboardText();
-                if (clipboardText != null && !clipboardText.trim().isEmpty()) {
-                    showViewer(clipboardText);
-                }
-            }));
+            trayIcon.addActionListener(e -> showClipboardViewer());
 
             tray.add(trayIcon);
         } catch (AWTException e) {
@@ -184,15 +368,40 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
                 (e.getModifiers() & NativeKeyEvent.SHIFT_MASK) != 0 &&
                 e.getKeyCode() == NativeKeyEvent.VC_F) {
 
-            Platform.runLater(() -> {
-                String clipboardText = getClipboardText();
-                if (clipboardText != null && !clipboardText.trim().isEmpty()) {
-                    showViewer(clipboardText);
-                }
-            });
+            showClipboardViewer();
         }
     }
 
+    // Called on the native hook or AWT thread; the hotkey-to-paint span starts here so the hop to the FX
+    // thread is part of it
+    private void showClipboardViewer() {
+        LatencyTimer total = latencyStats.start(LatencyStage.HOTKEY_TO_PAINT);
+        Platform.runLater(() -> {
+            LatencyTimer clipboardRead = latencyStats.start(LatencyStage.CLIPBOARD_READ);
+            String clipboardText = getClipboardText();
+            clipboardRead.stop(clipboardText != null ? clipboardText.length() : -1);
+            if (clipboardText != null && !clipboardText.trim().isEmpty()) {
+                paintTimer = total;
+                showViewer(clipboardText);
+            }
+        });
+    }
+
+    private void showLatencyStats() {
+        String report = latencyStats.report() + "\nFormat cache: " + formatCache + "\nMemory: " + MemoryUsage.report();
+        System.out.println(report);
+
+        TextArea table = new TextArea(report);
+        table.setEditable(false);
+        table.setStyle("-fx-font-family: 'Consolas', 'Monaco', monospace; -fx-font-size: 12px;");
+        table.setPrefSize(620, 300);
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(APP_NAME);
+        alert.setHeaderText("Latency Stats");
+        alert.getDialogPane().setContent(table);
+        alert.show();
+    }
+
     @Override
     public void nativeKeyReleased(NativeKeyEvent e) {
     }
@@ -208,8 +417,8 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
                 return null;
             }
             String content = (String) clipboard.getData(DataFlavor.stringFlavor);
-            if (content != null && content.length() > MAX_CONTENT_SIZE) {
-                showWarningNotification("Content too large", "Clipboard content exceeds " + (MAX_CONTENT_SIZE / 1024 / 1024) + "MB limit");
+            if (content != null && content.length() > MAX_LARGE_CONTENT_SIZE) {
+                showWarningNotification("Content too large", "Clipboard content exceeds " + (MAX_LARGE_CONTENT_SIZE / 1024 / 1024) + "MB limit");
                 return null;
             }
             return content;
@@ -227,12 +436,80 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         }
     }
 
+    // The stage is built once and only hidden between uses, so showing it costs no scene construction, CSS
+    // parsing or layout of the controls
     private void showViewer(String text) {
-        if (viewerStage != null) {
-            viewerStage.close();
-            viewerStage = null;
+        openViewer();
+        startFormatting(text);
+    }
+
+    private void chooseFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Open File");
+        if (watchedFile != null && watchedFile.toAbsolutePath().getParent() != null) {
+            chooser.setInitialDirectory(watchedFile.toAbsolutePath().getParent().toFile());
+        }
+        File file = chooser.showOpenDialog(null);
+        if (file != null) {
+            showFile(file.toPath());
         }
+    }
 
+    // Small files go through the same path as clipboard text and are watched for changes; large ones are
+    // formatted straight from disk
+    private void showFile(Path file) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            showWarningNotification("Cannot open file", file + ": " + e.getMessage());
+            return;
+        }
+        if (size > MAX_LARGE_CONTENT_SIZE) {
+            showWarningNotification("Content too large", "File exceeds " + (MAX_LARGE_CONTENT_SIZE / 1024 / 1024) + "MB limit");
+        } else if (size > MAX_CONTENT_SIZE) {
+            openViewer();
+            startLargeFormatting(file, null);
+        } else {
+            try {
+                byte[] content = Files.readAllBytes(file);
+                openViewer();
+                startFormatting(new String(content, StandardCharsets.UTF_8), true, true);
+                startWatching(file, content);
+            } catch (IOException e) {
+                showWarningNotification("Cannot open file", file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void openViewer() {
+        idleTrim.stop();
+        if (clipboardWatcher != null) {
+            clipboardWatcher.cancelCallback();
+        }
+        historyIndex = 0;
+        if (viewerStage == null) {
+            createViewer();
+        }
+        cancelFormatting();
+        stopWatching();
+        resetViewer();
+        documentView.setDocument(new TextDocument(FORMATTING_PLACEHOLDER));
+        releaseMappedText();
+        viewportColumns = 60;
+        viewportRows = 10;
+        documentView.setPreferredViewport(viewportColumns, viewportRows);
+
+        if (!viewerStage.isShowing()) {
+            viewerStage.show();
+        }
+        positionViewer();
+        viewerStage.toFront();
+        viewerStage.requestFocus();
+        documentView.requestFocus();
+    }
+
+    private void createViewer() {
         viewerStage = new Stage();
         viewerStage.initStyle(StageStyle.UNDECORATED);
         viewerStage.setTitle(APP_NAME);
@@ -244,75 +521,673 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         searchBox.setVisible(false);
         searchBox.setManaged(false);
 
-        textArea = new TextArea();
-        textArea.setStyle(
-                "-fx-control-inner-background: #282c34; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-highlight-fill: #264f78; " +
-                        "-fx-highlight-text-fill: white; " +
-                        "-fx-font-family: 'Consolas', 'Monaco', monospace; " +
-                        "-fx-font-size: 16px; " +
-                        "-fx-border-color: transparent; " +
-                        "-fx-focus-color: transparent; " +
-                        "-fx-faint-focus-color: transparent;"
-        );
-        textArea.setWrapText(false);
-        textArea.setEditable(true);
-
-        String formattedText = formatContent(text);
-        if (formattedText != null) {
-            textArea.setText(formattedText);
-            textArea.setPrefRowCount(Math.min(30, Math.max(10, formattedText.split("\n").length + 2)));
-            textArea.setPrefColumnCount(Math.min(120, getMaxLineLength(formattedText) + 5));
-        } else {
-            textArea.setPrefRowCount(Math.min(30, Math.max(10, text.split("\n").length + 2)));
-            textArea.setPrefColumnCount(Math.min(120, getMaxLineLength(text) + 5));
-            textArea.setText("Invalid JSON/XML format:\n" + text);
-        }
+        documentView = new DocumentView();
+        documentView.setEditable(false);
+        documentView.setDocument(new TextDocument(FORMATTING_PLACEHOLDER));
+        documentView.setPreferredViewport(60, 10);
 
-        root.getChildren().addAll(searchBox, textArea);
+        statusLabel = new Label();
+        statusLabel.setStyle("-fx-text-fill: #cccccc; -fx-font-size: 12px; -fx-padding: 4 8 4 8;");
+        statusLabel.setVisible(false);
+        statusLabel.setManaged(false);
+        statusTimeout.setOnFinished(e -> hideStatus());
+
+        VBox.setVgrow(documentView, Priority.ALWAYS);
+        root.getChildren().addAll(searchBox, documentView, statusLabel);
+        viewerRoot = root;
 
         Scene scene = new Scene(root);
         scene.setFill(Color.TRANSPARENT);
 
-        scene.setOnKeyPressed(event -> {
-            if (event.getCode() == KeyCode.ESCAPE) {
-                if (searchVisible) {
-                    hideSearch();
-                } else {
-                    hideViewer();
-                }
-            } else if (event.isControlDown() && event.getCode() == KeyCode.F) {
-                toggleSearch();
-                event.consume();
+        // Filter rather than handler: the document view consumes Escape for its own edit handling
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, viewerKeyFilter);
+        scene.setOnDragOver(event -> {
+            if (event.getDragboard().hasFiles()) {
+                event.acceptTransferModes(TransferMode.COPY);
             }
+            event.consume();
         });
-
-        viewerStage.focusedProperty().addListener((obs, wasFocused, isNowFocused) -> {
-            if (!isNowFocused) {
-                Platform.runLater(this::hideViewer);
+        scene.setOnDragDropped(event -> {
+            List<File> files = event.getDragboard().getFiles();
+            if (!files.isEmpty()) {
+                Path file = files.get(0).toPath();
+                Platform.runLater(() -> showFile(file));
             }
+            event.setDropCompleted(!files.isEmpty());
+            event.consume();
         });
+        viewerStage.focusedProperty().addListener(viewerFocusListener);
 
         viewerStage.setScene(scene);
         viewerStage.setAlwaysOnTop(true);
+        applyCustomScrollbarStyle();
+    }
 
-        viewerStage.show();
-        Platform.runLater(() -> {
-            viewerStage.sizeToScene();
-            Screen targetScreen = getCurrentMouseScreen();
-            Rectangle2D screenBounds = targetScreen.getVisualBounds();
-            double stageWidth = viewerStage.getWidth();
-            double stageHeight = viewerStage.getHeight();
-
-            viewerStage.setX((screenBounds.getMinX() + (screenBounds.getWidth() - stageWidth) / 2));
-            viewerStage.setY(screenBounds.getMinY() + (screenBounds.getHeight() - stageHeight) / 2);
+    // Builds the viewer and runs a sample through CSS, layout and the formatters at startup, so the first
+    // hotkey press does not pay for class loading and cold code
+    private void warmUpViewer() {
+        createViewer();
+        documentView.setDocument(new TextDocument(WARM_UP_SAMPLE));
+        viewerRoot.applyCss();
+        viewerRoot.layout();
+        documentView.setDocument(new TextDocument(""));
+        formatExecutor.submit(() -> {
+            for (String sample : SAMPLES) {
+                formatEngine().format(sample);
+            }
         });
-        viewerStage.toFront();
-        viewerStage.requestFocus();
-        textArea.requestFocus();
+    }
+
+    // Returns the reused viewer to its initial state: text view, search closed, no per-document caches
+    private void resetViewer() {
+        if (searchVisible) {
+            searchVisible = false;
+            searchBox.setVisible(false);
+            searchBox.setManaged(false);
+        }
+        clearSearchHighlights();
+        if (treeVisible) {
+            viewerRoot.getChildren().set(viewerRoot.getChildren().indexOf(documentTreeView), documentView);
+            treeVisible = false;
+        }
+        if (documentTreeView != null) {
+            documentTreeView.setOutline(null, null, null);
+        }
+        if (diffVisible) {
+            viewerRoot.getChildren().set(viewerRoot.getChildren().indexOf(diffView), documentView);
+            diffVisible = false;
+        }
+        if (diffView != null) {
+            diffView.setDiff(null);
+        }
+        hideStatus();
+        outlineSource = null;
+        searchIndex = null;
+        searchIndexDocument = null;
+        pathQueryEngine = null;
+        pathQueryDocument = null;
+        documentView.setEditable(false);
+    }
+
+    private void handleViewerKeyPressed(KeyEvent event) {
+        if (event.getCode() == KeyCode.ESCAPE) {
+            if (documentView != null && documentView.getEditingIndex() >= 0) {
+                return;
+            }
+            if (diffVisible) {
+                hideDiff();
+            } else if (searchVisible) {
+                hideSearch();
+            } else {
+                hideViewer();
+            }
+            event.consume();
+        } else if (event.isControlDown() && event.getCode() == KeyCode.F) {
+            if (!diffVisible) {
+                toggleSearch();
+            }
+            event.consume();
+        } else if (event.isControlDown() && event.getCode() == KeyCode.T) {
+            if (!diffVisible) {
+                toggleTreeView();
+            }
+            event.consume();
+        } else if (event.isControlDown() && event.isShiftDown() && event.getCode() == KeyCode.D) {
+            toggleDiffMark();
+            event.consume();
+        } else if (event.isControlDown() && event.getCode() == KeyCode.D) {
+            if (diffVisible) {
+                hideDiff();
+            } else {
+                showDiff();
+            }
+            event.consume();
+        } else if (event.isAltDown() && (event.getCode() == KeyCode.LEFT || event.getCode() == KeyCode.RIGHT)) {
+            showHistoryEntry(historyIndex + (event.getCode() == KeyCode.LEFT ? 1 : -1));
+            event.consume();
+        }
+    }
+
+    // Alt+Left goes back to older content, Alt+Right forward again; the entry is inflated off the FX thread
+    private void showHistoryEntry(int index) {
+        if (index < 0 || index >= history.size()) {
+            return;
+        }
+        cancelFormatting();
+        stopWatching();
+        resetViewer();
+        documentView.setDocument(new TextDocument(FORMATTING_PLACEHOLDER));
+        releaseMappedText();
+        historyIndex = index;
+        long generation = formatGeneration;
+        formatJob = formatExecutor.submit(() -> {
+            ClipboardHistory.Entry entry = history.get(index);
+            if (entry != null) {
+                debug("History " + (index + 1) + " of " + history.size() + " (" + history + ")");
+                Platform.runLater(() -> applyFormatResult(generation, entry.result()));
+            }
+        });
+    }
+
+    // Compares the shown history entry with the marked one, or with the one before it when none is marked. Both
+    // are brought into canonical form first so that reordered JSON members or re-indented XML do not show up
+    // as changes.
+    private void showDiff() {
+        if (documentView == null || formatJob != null || historyIndex < 0 || historyIndex >= history.size()) {
+            return;
+        }
+        int leftIndex;
+        if (diffMark != null) {
+            leftIndex = history.indexOf(diffMark);
+            if (leftIndex < 0) {
+                diffMark = null;
+                showStatus("The marked entry is no longer in the history");
+                return;
+            }
+            if (leftIndex == historyIndex) {
+                showStatus("This is the marked entry; go to another with Alt+Left / Alt+Right");
+                return;
+            }
+        } else {
+            leftIndex = historyIndex + 1;
+            if (leftIndex >= history.size()) {
+                showStatus("No earlier entry to compare with");
+                return;
+            }
+        }
+        int rightIndex = historyIndex;
+        FormatCache.Key leftKey = history.keyAt(leftIndex);
+        FormatCache.Key rightKey = history.keyAt(rightIndex);
+
+        if (treeVisible) {
+            showTextView();
+        }
+        if (searchVisible) {
+            hideSearch();
+        }
+        hideStatus();
+        if (diffView == null) {
+            diffView = new DiffView();
+            VBox.setVgrow(diffView, Priority.ALWAYS);
+        }
+        diffView.setDiff(null);
+        diffView.setPrefSize(Math.max(1100, documentView.getPrefWidth()), Math.max(500, documentView.getPrefHeight()));
+        viewerRoot.getChildren().set(viewerRoot.getChildren().indexOf(documentView), diffView);
+        diffVisible = true;
+        positionViewer();
+        diffView.requestFocus();
+
+        long generation = formatGeneration;
+        if (diffJob != null) {
+            diffJob.cancel(true);
+        }
+        diffJob = formatExecutor.submit(() -> {
+            // looked up by key, as entries added since the key press shift the indexes
+            ClipboardHistory.Entry left = history.get(history.indexOf(leftKey));
+            ClipboardHistory.Entry right = history.get(history.indexOf(rightKey));
+            if (left == null || right == null) {
+                int missing = (left == null ? leftIndex : rightIndex) + 1;
+                Platform.runLater(() -> {
+                    if (generation == formatGeneration && diffVisible) {
+                        diffView.showMessage("Entry " + missing + " could not be read from the history");
+                    }
+                });
+                return;
+            }
+            long start = System.nanoTime();
+            Canonicalizer canonicalizer = new Canonicalizer(formatEngine());
+            LineDiff diff = LineDiff.compute(canonicalizer.canonicalize(left.source(), left.result().contentType()),
+                    canonicalizer.canonicalize(right.source(), right.result().contentType()), DIFF_TIMEOUT_MILLIS);
+            debug("Diff of history " + (leftIndex + 1) + " and " + (rightIndex + 1) + ": -" + diff.deletedLines()
+                    + " +" + diff.insertedLines() + " lines in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                    + (diff.isMinimal() ? "" : " (time limit reached, not minimal)"));
+            Platform.runLater(() -> {
+                if (generation == formatGeneration && diffVisible) {
+                    diffView.setDiff(diff);
+                }
+            });
+        });
+    }
+
+    // Ctrl+Shift+D marks the shown entry for Ctrl+D to compare against, or clears the mark if it is on it
+    private void toggleDiffMark() {
+        FormatCache.Key key = formatJob == null ? history.keyAt(historyIndex) : null;
+        if (key == null) {
+            showStatus("Only content from the history can be marked for a diff");
+        } else if (key.equals(diffMark)) {
+            diffMark = null;
+            showStatus("Diff mark cleared");
+        } else {
+            diffMark = key;
+            showStatus("Entry " + (historyIndex + 1) + " marked; press Ctrl+D on another entry to compare with it");
+        }
+    }
+
+    private void showStatus(String message) {
+        if (statusLabel == null) {
+            return;
+        }
+        statusLabel.setText(message);
+        statusLabel.setVisible(true);
+        statusLabel.setManaged(true);
+        statusTimeout.playFromStart();
+    }
+
+    private void hideStatus() {
+        statusTimeout.stop();
+        if (statusLabel != null) {
+            statusLabel.setVisible(false);
+            statusLabel.setManaged(false);
+        }
+    }
+
+    private void hideDiff() {
+        if (diffJob != null) {
+            diffJob.cancel(true);
+            diffJob = null;
+        }
+        viewerRoot.getChildren().set(viewerRoot.getChildren().indexOf(diffView), documentView);
+        diffVisible = false;
+        diffView.setDiff(null);
+        positionViewer();
+        documentView.requestFocus();
+    }
+
+    private void toggleTreeView() {
+        if (treeVisible) {
+            showTextView();
+        } else {
+            showTreeView();
+        }
+    }
+
+    private void showTreeView() {
+        if (documentView == null || formatJob != null || !Outline.supports(documentView.getDocument().getContentType())
+                || documentView.getDocument().getText() instanceof MappedText) {
+            return;
+        }
+        if (searchVisible) {
+            hideSearch();
+        }
+        if (documentTreeView == null) {
+            documentTreeView = new DocumentTreeView();
+            VBox.setVgrow(documentTreeView, Priority.ALWAYS);
+        }
+        documentTreeView.setPrefSize(documentView.getPrefWidth(), documentView.getPrefHeight());
+        viewerRoot.getChildren().set(viewerRoot.getChildren().indexOf(documentView), documentTreeView);
+        treeVisible = true;
+        documentTreeView.requestFocus();
+        loadOutline(documentView.getDocument());
+    }
+
+    // The outline is rebuilt only when the text changed since it was last shown, and the root is scanned
+    // on the worker so a large document does not stall the window
+    private void loadOutline(TextDocument document) {
+        if (document.getText() == outlineSource) {
+            return;
+        }
+        outlineSource = document.getText();
+        String source = outlineSource.toString();
+        ContentType contentType = document.getContentType();
+        long generation = formatGeneration;
+
+        documentTreeView.setOutline(null, null, null);
+        if (outlineJob != null) {
+            outlineJob.cancel(true);
+        }
+        outlineJob = formatExecutor.submit(() -> {
+            Outline outline = Outline.of(source, contentType);
+            OutlineNode root = outline.root();
+            List<OutlineNode> children = outline.children(root);
+            Platform.runLater(() -> {
+                if (generation == formatGeneration && documentTreeView != null && document.getText() == outlineSource) {
+                    documentTreeView.setOutline(outline, root, children);
+                }
+            });
+        });
+    }
+
+    // Leaves the tree on the line where the selected node starts
+    private void showTextView() {
+        OutlineNode selected = documentTreeView.getSelectedNode();
+        viewerRoot.getChildren().set(viewerRoot.getChildren().indexOf(documentTreeView), documentView);
+        treeVisible = false;
+        documentView.requestFocus();
+        if (selected != null && documentView.getDocument().getText() == outlineSource) {
+            documentView.selectRange(selected.getStart(), 1);
+        }
+    }
+
+    private void startFormatting(String text) {
+        startFormatting(text, false, true);
+    }
+
+    // Text from a file that is neither JSON/XML nor records is shown as it is, without the clipboard's
+    // "invalid" header. Reloads of a watched file pass 'addToHistory' false, so that a file that keeps
+    // changing does not push everything else out of the history.
+    private void startFormatting(String text, boolean fromFile, boolean addToHistory) {
+        if (text.length() > MAX_CONTENT_SIZE) {
+            startLargeFormatting(null, text);
+            return;
+        }
+        cancelFormatting();
+        long generation = formatGeneration;
+        formatJob = formatExecutor.submit(() -> {
+            LatencyTimer detect = latencyStats.start(LatencyStage.DETECT);
+            ContentType detected = formatEngine().detect(text);
+            detect.stop(text.length());
+            if (fromFile && detected == ContentType.PLAIN) {
+                DisplayResult plain = new DisplayResult(text, LineIndex.of(text), ContentType.PLAIN);
+                Platform.runLater(() -> applyFormatResult(generation, plain));
+                if (addToHistory) {
+                    history.add(text, FormatCache.Key.of(text, detected), plain);
+                }
+                return;
+            }
+            LatencyTimer lookup = latencyStats.start(LatencyStage.CACHE_LOOKUP);
+            FormatCache.Key key = FormatCache.Key.of(text, detected);
+            DisplayResult cached = formatCache.get(key);
+            lookup.stop(text.length());
+            if (cached != null) {
+                debug("Format cache hit (" + formatCache + ")");
+                Platform.runLater(() -> applyFormatResult(generation, cached));
+                if (addToHistory) {
+                    history.add(text, key, cached);
+                }
+                return;
+            }
+            if (formatEngine().formatterFor(detected) instanceof RecordFormatter records) {
+                formatRecords(records, text, generation, key, addToHistory);
+                return;
+            }
+            LatencyTimer format = latencyStats.start(LatencyStage.FORMAT);
+            FormatResult formatted = formatEngine().format(text, detected);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            format.stop(text.length());
+            LatencyTimer lineIndex = latencyStats.start(LatencyStage.LINE_INDEX);
+            DisplayResult result = toDisplayResult(text, formatted);
+            lineIndex.stop(result.text().length());
+            formatCache.put(key, result);
+            Platform.runLater(() -> applyFormatResult(generation, result));
+            if (addToHistory) {
+                history.add(text, key, result);
+            }
+        });
+    }
+
+    private static DisplayResult toDisplayResult(String text, FormatResult formatted) {
+        String displayText = formatted.isFormatted() ? formatted.text() : "Invalid JSON/XML format:\n" + text;
+        return new DisplayResult(displayText, LineIndex.of(displayText),
+                formatted.isFormatted() ? formatted.contentType() : ContentType.PLAIN);
+    }
+
+    // Called by the clipboard watcher for each new clipboard text: formats it ahead of the hotkey so that
+    // showing it is a cache hit. Runs on the watcher's single low-priority thread; log records get one
+    // formatting worker instead of all cores.
+    private void preformat(String text) {
+        if (text.isBlank() || (viewerStage != null && viewerStage.isShowing())) {
+            return;
+        }
+        ContentType detected = formatEngine().detect(text);
+        FormatCache.Key key = FormatCache.Key.of(text, detected);
+        if (formatCache.contains(key)) {
+            return;
+        }
+        long started = System.nanoTime();
+        DisplayResult result;
+        if (formatEngine().formatterFor(detected) instanceof RecordFormatter records) {
+            StringBuilder formatted = new StringBuilder(text.length() + (text.length() >> 1));
+            try {
+                records.formatIncrementally(text.trim(), preformatExecutor, 1, formatted::append);
+            } catch (InterruptedException e) {
+                // the viewer was opened
+                return;
+            }
+            String displayText = formatted.toString();
+            result = new DisplayResult(displayText, LineIndex.of(displayText), ContentType.LOG);
+        } else {
+            result = toDisplayResult(text, formatEngine().format(text, detected));
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+        formatCache.put(key, result);
+        debug("Pre-formatted " + text.length() + " chars as " + result.contentType() + " in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    // Formats 'file', or 'text' after spilling it to a temp file, into a UTF-16 temp file that is then
+    // memory-mapped, so neither the input nor the formatted copy has to stay on the heap
+    private void startLargeFormatting(Path file, String text) {
+        cancelFormatting();
+        // too large for the history, so Alt+Left goes back to its newest entry
+        historyIndex = -1;
+        long generation = formatGeneration;
+        // the job drops its reference to the clipboard text as soon as it is on disk
+        String[] pendingText = {text};
+        formatJob = formatExecutor.submit(() -> {
+            Path spilled = null;
+            Path formatted = null;
+            try {
+                Path input = file;
+                if (input == null) {
+                    spilled = Files.createTempFile("quickpeek-", ".txt");
+                    Files.writeString(spilled, pendingText[0], StandardCharsets.UTF_8);
+                    pendingText[0] = null;
+                    input = spilled;
+                }
+                formatted = Files.createTempFile("quickpeek-", ".utf16");
+                LatencyTimer format = latencyStats.start(LatencyStage.FORMAT);
+                ContentType contentType = streamingFormatter().format(input, formatted, StandardCharsets.UTF_16BE,
+                        formatExecutor, RECORD_PARALLELISM);
+                format.stop(Files.size(input));
+                MappedText mapped = MappedText.map(formatted);
+                formatted = null;
+                LatencyTimer lineIndexTimer = latencyStats.start(LatencyStage.LINE_INDEX);
+                LineIndex lineIndex = LineIndex.of(mapped);
+                lineIndexTimer.stop(mapped.length());
+                Platform.runLater(() -> applyLargeResult(generation, mapped, lineIndex, contentType));
+            } catch (InterruptedException e) {
+                // superseded by newer content or the viewer was hidden
+            } catch (Exception e) {
+                String message = "Could not format large content: " + e.getMessage();
+                System.out.println(message);
+                DisplayResult failure = new DisplayResult(message, LineIndex.of(message), ContentType.PLAIN);
+                Platform.runLater(() -> applyFormatResult(generation, failure));
+            } finally {
+                deleteQuietly(spilled);
+                deleteQuietly(formatted);
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    // Mapped documents stay read-only: editing a line rebuilds the whole text as a String
+    private void applyLargeResult(long generation, MappedText text, LineIndex lineIndex, ContentType contentType) {
+        if (generation != formatGeneration || documentView == null) {
+            text.delete();
+            return;
+        }
+        formatJob = null;
+        releaseMappedText();
+        mappedText = text;
+
+        LatencyTimer setDocument = latencyStats.start(LatencyStage.SET_DOCUMENT);
+        documentView.setDocument(new TextDocument(text, lineIndex, contentType));
+        setDocument.stop(text.length());
+        LatencyTimer resize = latencyStats.start(LatencyStage.RESIZE);
+        fitViewerToDocument();
+        resize.stop();
+        awaitPaint();
+
+        if (searchVisible && !searchField.getText().isEmpty()) {
+            performSearch();
+        }
+    }
+
+    // Log records are shown batch by batch as they are formatted instead of after the whole paste
+    private void formatRecords(RecordFormatter records, String text, long generation, FormatCache.Key key,
+                               boolean addToHistory) {
+        Platform.runLater(() -> applyRecordChunk(generation, null));
+        boolean complete = false;
+        try {
+            records.formatIncrementally(text.trim(), formatExecutor, RECORD_PARALLELISM,
+                    chunk -> Platform.runLater(() -> applyRecordChunk(generation, chunk)));
+            complete = true;
+        } catch (InterruptedException e) {
+            return;
+        } catch (Exception e) {
+            System.out.println("Could not format log records: " + e.getMessage());
+        }
+        FormatCache.Key cacheKey = complete ? key : null;
+        String historySource = addToHistory ? text : null;
+        Platform.runLater(() -> finishRecords(generation, cacheKey, historySource));
+    }
 
-        Platform.runLater(this::applyCustomScrollbarStyle);
+    private void applyRecordChunk(long generation, String chunk) {
+        if (generation != formatGeneration || viewerStage == null || documentView == null) {
+            return;
+        }
+        if (chunk == null) {
+            documentView.setDocument(new TextDocument("", LineIndex.of(""), ContentType.LOG));
+        } else {
+            documentView.getDocument().append(chunk);
+            fitViewerToDocument();
+            awaitPaint();
+        }
+    }
+
+    // A null key means formatting failed part way, and the partial result is not cached. A null source keeps
+    // the result out of the history.
+    private void finishRecords(long generation, FormatCache.Key key, String source) {
+        if (generation != formatGeneration || viewerStage == null || documentView == null) {
+            return;
+        }
+        formatJob = null;
+        if (key != null) {
+            TextDocument document = documentView.getDocument();
+            DisplayResult result = new DisplayResult(document.getText().toString(), document.getLineIndex(), ContentType.LOG);
+            formatCache.put(key, result);
+            if (source != null) {
+                formatExecutor.submit(() -> history.add(source, key, result));
+            }
+        }
+        documentView.setEditable(true);
+        if (searchVisible && !searchField.getText().isEmpty()) {
+            performSearch();
+        }
+        if (watchRefreshPending) {
+            refreshWatchedFile();
+        }
+    }
+
+    private void cancelFormatting() {
+        formatGeneration++;
+        if (outlineJob != null) {
+            outlineJob.cancel(true);
+            outlineJob = null;
+        }
+        if (diffJob != null) {
+            diffJob.cancel(true);
+            diffJob = null;
+        }
+        if (formatJob != null) {
+            formatJob.cancel(true);
+            formatJob = null;
+        }
+    }
+
+    private void applyFormatResult(long generation, DisplayResult result) {
+        if (generation != formatGeneration || viewerStage == null || documentView == null) {
+            return;
+        }
+        formatJob = null;
+
+        LatencyTimer setDocument = latencyStats.start(LatencyStage.SET_DOCUMENT);
+        documentView.setDocument(new TextDocument(result.text(), result.lineIndex(), result.contentType()));
+        documentView.setEditable(true);
+        setDocument.stop(result.text().length());
+        LatencyTimer resize = latencyStats.start(LatencyStage.RESIZE);
+        fitViewerToDocument();
+        resize.stop();
+        awaitPaint();
+
+        if (searchVisible && !searchField.getText().isEmpty()) {
+            performSearch();
+        }
+        if (watchRefreshPending) {
+            refreshWatchedFile();
+        }
+    }
+
+    // Ends the hotkey-to-paint span after the next layout pass, which is the last step before the content
+    // is rendered. Log records end it with their first batch.
+    private void awaitPaint() {
+        LatencyTimer total = paintTimer;
+        if (total == null) {
+            return;
+        }
+        paintTimer = null;
+        LatencyTimer layout = latencyStats.start(LatencyStage.LAYOUT);
+        Scene scene = viewerStage.getScene();
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+                layout.stop();
+                if (total.stop() >= 0) {
+                    debug("Shown: " + latencyStats.lastBreakdown());
+                    if (training && !firstPopupShown) {
+                        firstPopupShown = true;
+                        System.out.println("Startup: first popup after " + millisSinceLaunch() + " ms");
+                    }
+                }
+                CountDownLatch painted = trainingPaint;
+                if (painted != null) {
+                    painted.countDown();
+                }
+            }
+        });
+    }
+
+    private void fitViewerToDocument() {
+        LineIndex lineIndex = documentView.getDocument().getLineIndex();
+        setViewport(Math.min(120, (lineIndex.length() == 0 ? 80 : lineIndex.maxLineLength()) + 5),
+                Math.min(30, Math.max(10, lineIndex.lineCount() + 2)));
+    }
+
+    // Resizing re-centres the window, so it only happens when the size actually changes
+    private void setViewport(int columns, int rows) {
+        if (columns == viewportColumns && rows == viewportRows) {
+            return;
+        }
+        viewportColumns = columns;
+        viewportRows = rows;
+        documentView.setPreferredViewport(columns, rows);
+        positionViewer();
+    }
+
+    private void positionViewer() {
+        if (viewerStage == null) return;
+        viewerStage.sizeToScene();
+        Screen targetScreen = getCurrentMouseScreen();
+        Rectangle2D screenBounds = targetScreen.getVisualBounds();
+        double stageWidth = viewerStage.getWidth();
+        double stageHeight = viewerStage.getHeight();
+
+        viewerStage.setX((screenBounds.getMinX() + (screenBounds.getWidth() - stageWidth) / 2));
+        viewerStage.setY(screenBounds.getMinY() + (screenBounds.getHeight() - stageHeight) / 2);
     }
 
     private Screen getCurrentMouseScreen() {
@@ -339,10 +1214,6 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         }
     }
 
-    private int getMaxLineLength(String text) {
-        return text.lines().mapToInt(String::length).max().orElse(80);
-    }
-
     private void applyCustomScrollbarStyle() {
         try {
             String scrollbarCss =
@@ -406,6 +1277,15 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         nextBtn.setStyle("-fx-background-color: #3c3c3c; -fx-text-fill: white; -fx-font-size: 10px;");
         nextBtn.setPrefWidth(25);
 
+        regexToggle = createSearchToggle(".*", "Regular expression");
+        wholeWordToggle = createSearchToggle("W", "Whole word");
+        pathToggle = createSearchToggle("$/", "Path query: JSONPath for JSON, XPath for XML");
+        pathToggle.selectedProperty().addListener((obs, wasSelected, isSelected) -> {
+            regexToggle.setDisable(isSelected);
+            wholeWordToggle.setDisable(isSelected);
+            updateSearchPrompt();
+        });
+
         resultLabel = new Label();
         resultLabel.setStyle("-fx-text-fill: #cccccc; -fx-font-size: 12px;");
 
@@ -417,9 +1297,11 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         nextBtn.setOnAction(e -> navigateSearch(1));
         closeBtn.setOnAction(e -> hideSearch());
 
+        // Typing restarts the pause, so a burst of keystrokes triggers one search
+        searchDebounce.setOnFinished(e -> performSearch());
         searchField.textProperty().addListener((obs, oldText, newText) -> {
             if (!newText.isEmpty()) {
-                performSearch();
+                searchDebounce.playFromStart();
             } else {
                 clearSearchHighlights();
             }
@@ -427,7 +1309,9 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
 
         searchField.setOnKeyPressed(e -> {
             if (e.getCode() == KeyCode.ENTER) {
-                if (e.isShiftDown()) {
+                if (searchDebounce.getStatus() == Animation.Status.RUNNING) {
+                    performSearch();
+                } else if (e.isShiftDown()) {
                     navigateSearch(-1);
                 } else {
                     navigateSearch(1);
@@ -440,12 +1324,27 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        searchControls.getChildren().addAll(searchField, prevBtn, nextBtn, resultLabel, spacer, closeBtn);
+        searchControls.getChildren().addAll(searchField, regexToggle, wholeWordToggle, pathToggle, prevBtn, nextBtn, resultLabel, spacer, closeBtn);
         searchContainer.getChildren().add(searchControls);
 
         return searchContainer;
     }
 
+    private ToggleButton createSearchToggle(String text, String tooltip) {
+        ToggleButton toggle = new ToggleButton(text);
+        toggle.setTooltip(new Tooltip(tooltip));
+        toggle.setPrefWidth(30);
+        toggle.setFocusTraversable(false);
+        toggle.setStyle("-fx-background-color: #3c3c3c; -fx-text-fill: white; -fx-font-size: 10px;");
+        toggle.selectedProperty().addListener((obs, wasSelected, isSelected) -> {
+            toggle.setStyle("-fx-background-color: " + (isSelected ? "#0e639c" : "#3c3c3c") + "; -fx-text-fill: white; -fx-font-size: 10px;");
+            if (!searchField.getText().isEmpty()) {
+                performSearch();
+            }
+        });
+        return toggle;
+    }
+
     private void toggleSearch() {
         if (searchVisible) {
             hideSearch();
@@ -455,7 +1354,11 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
     }
 
     private void showSearch() {
+        if (treeVisible) {
+            showTextView();
+        }
         searchVisible = true;
+        updateSearchPrompt();
         searchBox.setVisible(true);
         searchBox.setManaged(true);
         searchField.requestFocus();
@@ -464,51 +1367,190 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
         }
     }
 
+    private void updateSearchPrompt() {
+        if (!pathToggle.isSelected()) {
+            searchField.setPromptText("Find");
+        } else if (documentView != null && documentView.getDocument().getContentType() == ContentType.XML) {
+            searchField.setPromptText("//item/@id");
+        } else {
+            searchField.setPromptText("$.items[*].price");
+        }
+    }
+
     private void hideSearch() {
         searchVisible = false;
         searchBox.setVisible(false);
         searchBox.setManaged(false);
         clearSearchHighlights();
-        textArea.requestFocus();
+        documentView.requestFocus();
     }
 
     private void performSearch() {
-        if (textArea == null) return;
-        //textArea.requestFocus();
+        if (documentView == null) return;
+        searchDebounce.stop();
         String query = searchField.getText();
         if (query.isEmpty()) {
             clearSearchHighlights();
             return;
         }
 
-        searchResults.clear();
-        currentSearchIndex = 0;
+        if (searchJob != null) {
+            searchJob.cancel(true);
+            searchJob = null;
+        }
+        long generation = ++searchGeneration;
+        if (pathToggle.isSelected()) {
+            performPathQuery(generation, query);
+            return;
+        }
+        SearchQuery searchQuery = new SearchQuery(query, regexToggle.isSelected(), wholeWordToggle.isSelected());
+        TextDocument document = documentView.getDocument();
+        int version = document.getVersion();
+        SearchIndex index = searchIndexDocument == document && searchIndexVersion == version ? searchIndex : null;
+        // snapshot, since records may still be appended to the document; mapped text never changes
+        CharSequence text = index != null ? null
+                : document.getText() instanceof MappedText mapped ? mapped : document.getText().toString();
+
+        if (document.getText().length() < BACKGROUND_SEARCH_THRESHOLD) {
+            runSearch(generation, document, version, index, text, searchQuery);
+        } else {
+            resultLabel.setText("Searching…");
+            searchJob = formatExecutor.submit(() -> runSearch(generation, document, version, index, text, searchQuery));
+        }
+    }
+
+    // Runs on the FX thread for small documents and on the worker pool otherwise
+    private void runSearch(long generation, TextDocument document, int version, SearchIndex index,
+                           CharSequence text, SearchQuery query) {
+        SearchIndex searchedIndex = index != null ? index
+                : text instanceof String string ? SearchIndex.of(string) : SearchIndex.unindexed(text);
+        SearchHits hits;
+        try {
+            hits = searchedIndex.find(query);
+        } catch (PatternSyntaxException e) {
+            hits = null;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        SearchHits result = hits;
+        Runnable apply = () -> applySearchResult(generation, document, version, searchedIndex, result);
+        if (Platform.isFxApplicationThread()) {
+            apply.run();
+        } else {
+            Platform.runLater(apply);
+        }
+    }
 
-        String text = textArea.getText();
-        String lowerText = text.toLowerCase();
-        String lowerQuery = query.toLowerCase();
+    private void applySearchResult(long generation, TextDocument document, int version, SearchIndex index,
+                                   SearchHits hits) {
+        if (generation != searchGeneration || documentView == null || documentView.getDocument() != document) {
+            return;
+        }
+        searchJob = null;
+        searchIndex = index;
+        searchIndexDocument = document;
+        searchIndexVersion = version;
 
-        int index = 0;
-        while ((index = lowerText.indexOf(lowerQuery, index)) != -1) {
-            searchResults.add(index);
-            index += query.length();
+        if (hits == null) {
+            showSearchMessage("Invalid pattern");
+            return;
         }
+        showSearchHits(hits, null);
+    }
 
-        updateResultLabel();
+    // The engine lives as long as the document version it was built for, so the parsed XML is reused by
+    // every query typed against the same document
+    private void performPathQuery(long generation, String expression) {
+        TextDocument document = documentView.getDocument();
+        if (!PathQueryEngine.supports(document.getContentType())) {
+            showSearchMessage("Path queries need JSON or XML");
+            return;
+        }
+        if (document.getText() instanceof MappedText) {
+            showSearchMessage("Too large for path queries");
+            return;
+        }
+        int version = document.getVersion();
+        if (pathQueryDocument != document || pathQueryVersion != version) {
+            pathQueryEngine = new PathQueryEngine(document.getText().toString(), document.getContentType());
+            pathQueryDocument = document;
+            pathQueryVersion = version;
+        }
+        PathQueryEngine engine = pathQueryEngine;
+
+        if (document.getText().length() < BACKGROUND_SEARCH_THRESHOLD) {
+            runPathQuery(generation, document, engine, expression);
+        } else {
+            resultLabel.setText("Searching…");
+            searchJob = formatExecutor.submit(() -> runPathQuery(generation, document, engine, expression));
+        }
+    }
+
+    private void runPathQuery(long generation, TextDocument document, PathQueryEngine engine, String expression) {
+        PathQueryResult result;
+        try {
+            result = engine.evaluate(expression);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Path query failed: " + e.getMessage());
+            result = null;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        PathQueryResult queryResult = result;
+        Runnable apply = () -> applyPathQueryResult(generation, document, queryResult);
+        if (Platform.isFxApplicationThread()) {
+            apply.run();
+        } else {
+            Platform.runLater(apply);
+        }
+    }
+
+    private void applyPathQueryResult(long generation, TextDocument document, PathQueryResult result) {
+        if (generation != searchGeneration || documentView == null || documentView.getDocument() != document) {
+            return;
+        }
+        searchJob = null;
+        if (result == null) {
+            showSearchMessage("Invalid query");
+        } else if (result.value() != null) {
+            showSearchMessage("= " + result.value());
+        } else {
+            showSearchHits(result.hits(), result.error());
+        }
+    }
 
-        if (!searchResults.isEmpty()) {
-            highlightSearchResults();
+    private void showSearchMessage(String message) {
+        searchHits = SearchHits.EMPTY;
+        searchHitsNote = null;
+        documentView.setSearchHits(SearchHits.EMPTY, -1);
+        resultLabel.setText(message);
+    }
+
+    private void showSearchHits(SearchHits hits, String note) {
+        searchHits = hits;
+        searchHitsNote = note;
+        currentSearchIndex = 0;
+        documentView.setSearchHits(hits, hits.isEmpty() ? -1 : 0);
+        updateResultLabel();
+        if (!hits.isEmpty()) {
             scrollToSearchResult(0);
         }
     }
 
     private void navigateSearch(int direction) {
-        if (searchResults.isEmpty()) return;
+        if (documentView != null && documentView.getSearchHits() != searchHits) {
+            // the document was edited since the last search, so the hits are stale
+            performSearch();
+            return;
+        }
+        if (searchHits.isEmpty()) return;
 
         currentSearchIndex += direction;
         if (currentSearchIndex < 0) {
-            currentSearchIndex = searchResults.size() - 1;
-        } else if (currentSearchIndex >= searchResults.size()) {
+            currentSearchIndex = searchHits.size() - 1;
+        } else if (currentSearchIndex >= searchHits.size()) {
             currentSearchIndex = 0;
         }
 
@@ -517,343 +1559,242 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
     }
 
     private void scrollToSearchResult(int index) {
-        if (index < 0 || index >= searchResults.size()) return;
+        if (index < 0 || index >= searchHits.size()) return;
 
-        int position = searchResults.get(index);
-        textArea.selectRange(position, position + searchField.getText().length());
-    }
-
-    private void highlightSearchResults() {
-        // JavaFX TextArea doesn't support multiple highlights easily
-        // The selection will show the current match
+        documentView.setSearchHits(searchHits, index);
+        documentView.selectRange(searchHits.start(index), searchHits.end(index) - searchHits.start(index));
     }
 
     private void clearSearchHighlights() {
-        searchResults.clear();
+        searchDebounce.stop();
+        searchGeneration++;
+        if (searchJob != null) {
+            searchJob.cancel(true);
+            searchJob = null;
+        }
+        searchHits = SearchHits.EMPTY;
+        searchHitsNote = null;
         currentSearchIndex = 0;
         updateResultLabel();
-        if (textArea != null) {
-            textArea.deselect();
+        if (documentView != null) {
+            documentView.setSearchHits(SearchHits.EMPTY, -1);
+            documentView.getSelectionModel().clearSelection();
         }
     }
 
     private void updateResultLabel() {
         if (resultLabel == null) return;
-        if (searchResults.isEmpty()) {
-            resultLabel.setText("No results");
-        } else {
-            resultLabel.setText((currentSearchIndex + 1) + " of " + searchResults.size());
-        }
+        String text = searchHits.isEmpty()
+                ? "No results"
+                : (currentSearchIndex + 1) + " of " + searchHits.size() + (searchHits.isTruncated() ? "+" : "");
+        resultLabel.setText(searchHitsNote == null ? text : text + " (" + searchHitsNote + ")");
     }
 
+    // Hides the stage for reuse, dropping the document so a large payload is not kept alive until the next use
     private void hideViewer() {
-/*        if (viewerStage != null) {
-            viewerStage.hide();
+        cancelFormatting();
+        stopWatching();
+        if (viewerStage == null || !viewerStage.isShowing()) {
+            return;
         }
-        searchResults.clear();
-        currentSearchIndex = 0;
-        //*/
-
-        searchVisible = false;
-        Platform.runLater(() -> {
-            try {
-                // 1. Clear UI event handlers first
-                clearEventHandlers();
-
-                // 2. Clear and nullify UI components
-                clearUIComponents();
-
-                // 3. Clear data structures
-                clearDataStructures();
-
-                // 4. Close and nullify stage
-                if (viewerStage != null) {
-                    viewerStage.close();
-                    viewerStage = null;
-                }
-            } catch (Exception ignored) {}
-        });
+        resetViewer();
+        documentView.setDocument(new TextDocument(""));
+        releaseMappedText();
+        viewerStage.hide();
+        idleTrim.playFromStart();
     }
 
-    private void clearEventHandlers() {
-        try {
-            if (viewerStage != null && viewerStage.getScene() != null) {
-                // Clear scene event handlers
-                viewerStage.getScene().setOnKeyPressed(null);
-                viewerStage.setOnCloseRequest(null);
-
-                // Clear stage focus listener (this is tricky, but we can set a new empty one)
-                viewerStage.focusedProperty().addListener((obs, wasFocused, isNowFocused) -> {
-                    // Empty listener to replace the old one
-                });
-            }
-        } catch (Exception ignored) {}
+    // Called on the formatting threads as well as the FX thread
+    private synchronized FormatEngine formatEngine() {
+        if (formatEngine == null) {
+            formatEngine = new FormatEngine();
+        }
+        return formatEngine;
     }
 
-    private void clearUIComponents() {
-        try {
-            // Clear text area
-            if (textArea != null) {
-                textArea.clear();
-                textArea.setOnKeyPressed(null);
-                textArea = null;
-            }
-
-            // Clear search components
-            if (searchField != null) {
-                searchField.clear();
-                searchField.textProperty().removeListener((obs, oldText, newText) -> {});
-                searchField.setOnKeyPressed(null);
-                searchField = null;
-            }
-
-            // Clear search box and its children
-            if (searchBox != null) {
-                searchBox.getChildren().forEach(node -> {
-                    if (node instanceof javafx.scene.control.Button) {
-                        ((javafx.scene.control.Button) node).setOnAction(null);
-                    }
-                });
-                searchBox.getChildren().clear();
-                searchBox = null;
-            }
-
-            if (resultLabel != null) {
-                resultLabel.setText("");
-                resultLabel = null;
-            }
-
-        } catch (Exception ignored) {}
+    private synchronized StreamingFormatter streamingFormatter() {
+        if (streamingFormatter == null) {
+            streamingFormatter = new StreamingFormatter();
+        }
+        return streamingFormatter;
     }
 
-    private void clearDataStructures() {
-        try {
-            // Clear collections
-            searchResults.clear();
-            // Reset counters
-            currentSearchIndex = 0;
-            searchVisible = false;
-
-        } catch (Exception ignored) {}
+    // Runs once the viewer has stayed hidden for IDLE_TRIM_DELAY. Most cached results are released, and in
+    // low-memory mode the viewer and formatters too; the collection that follows lets the JVM shrink the
+    // heap and return the memory to the OS (see the GC options in pom.xml).
+    private void trimIdleMemory() {
+        if (viewerStage != null && viewerStage.isShowing()) {
+            return;
+        }
+        debug("Idle before trim: " + MemoryUsage.report());
+        formatCache.trimTo(lowMemory ? 0 : IDLE_FORMAT_CACHE_BYTES);
+        if (lowMemory) {
+            discardViewer();
+            synchronized (this) {
+                formatEngine = null;
+                streamingFormatter = null;
+            }
+            // Low-memory mode is for hosts where the resident size matters while idle. An idle app allocates
+            // too little to trigger a collection, and G1's periodic collections only start after
+            // G1PeriodicGCInterval, so without this the released memory stays committed for that long.
+            System.gc();
+        }
+        debug("Idle after trim: " + MemoryUsage.report());
     }
 
-    private String formatContent(String content) {
-        content = content.trim();
-
-        if (content.startsWith("{") || content.startsWith("[") || ((content.contains("{") || content.contains("}")) && content.contains(":"))) {
-            return formatJson(content);
-        } else if (content.startsWith("<") || content.contains("/>") || content.contains("</")) {
-            return formatXml(content);
-        } else if (javaObjectFormatter.isJavaObjectString(content)) {
-            return formatJavaObject(content);
+    private void discardViewer() {
+        if (viewerStage == null) {
+            return;
         }
-
-        return null;
+        viewerStage.focusedProperty().removeListener(viewerFocusListener);
+        viewerStage.close();
+        viewerStage = null;
+        viewerRoot = null;
+        documentView = null;
+        documentTreeView = null;
+        diffView = null;
+        statusLabel = null;
+        statusTimeout.stop();
+        searchBox = null;
+        searchField = null;
+        resultLabel = null;
+        regexToggle = null;
+        wholeWordToggle = null;
+        pathToggle = null;
+        searchDebounce.setOnFinished(null);
     }
 
-    private String formatJson(String json) {
+    private void startWatching(Path file, byte[] content) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonNode);
-        } catch (Exception e) {
-            System.out.println("Could not format JSON: " + e.getMessage());
-            System.out.println("Trying to parse manually");
-            return formatJsonManually(json);
+            fileTail = new FileTail(file, content);
+            fileWatcher = new FileWatcher(file, () -> Platform.runLater(this::refreshWatchedFile));
+            watchedFile = file;
+        } catch (IOException e) {
+            System.out.println("Cannot watch " + file + ": " + e.getMessage());
+            fileTail = null;
         }
     }
 
-    private String formatJavaObject(String object) {
-        try {
-            if (object == null) {
-                return null;
-            }
-            return javaObjectFormatter.formatJavaObject(object);
-        } catch (Exception e) {
-            return null;
+    private void stopWatching() {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
         }
+        fileTail = null;
+        watchRefreshPending = false;
     }
 
-    private String formatJsonManually(String json) {
-        try {
-            json = json.trim();
-            if (json.isEmpty()) {
-                return null;
-            }
-
-            StringBuilder formatted = new StringBuilder();
-            int indentLevel = 0;
-            boolean inString = false;
-            boolean escaped = false;
-            char prevChar = 0;
-
-            for (int i = 0; i < json.length(); i++) {
-                char currentChar = json.charAt(i);
-                char nextChar = i + 1 < json.length() ? json.charAt(i + 1) : 0;
-
-                if (currentChar == '"' && !escaped) {
-                    inString = !inString;
-                    formatted.append(currentChar);
-                    escaped = false;
-                    continue;
-                }
-
-                if (inString) {
-                    formatted.append(currentChar);
-                    escaped = (currentChar == '\\' && !escaped);
-                    continue;
-                }
-
-                escaped = false;
-
-                switch (currentChar) {
-                    case '{':
-                    case '[':
-                        formatted.append(currentChar);
-                        if (nextChar != '}' && nextChar != ']') {
-                            indentLevel++;
-                            appendNewlineWithIndent(formatted, indentLevel);
-                        }
-                        break;
-
-                    case '}':
-                    case ']':
-                        if (prevChar != '{' && prevChar != '[' && !Character.isWhitespace(prevChar)) {
-                            indentLevel = Math.max(0, indentLevel - 1);
-                            appendNewlineWithIndent(formatted, indentLevel);
-                        } else {
-                            indentLevel = Math.max(0, indentLevel - 1);
-                        }
-                        formatted.append(currentChar);
-                        break;
-
-                    case ',':
-                        formatted.append(currentChar);
-                        if (!isClosingBracketNext(json, i)) {
-                            appendNewlineWithIndent(formatted, indentLevel);
-                        }
-                        break;
-
-                    case ':':
-                        formatted.append(currentChar);
-                        if (nextChar != ' ' && nextChar != '\t') {
-                            formatted.append(' ');
-                        }
-                        break;
-
-                    case ' ':
-                    case '\t':
-                    case '\n':
-                    case '\r':
-                        if (!formatted.isEmpty() && formatted.charAt(formatted.length() - 1) != ' ') {
-                            char lastChar = formatted.charAt(formatted.length() - 1);
-                            if (lastChar != ':' && lastChar != ',' && lastChar != '{' && lastChar != '[') {
-                                formatted.append(' ');
-                            }
-                        }
-                        break;
-
-                    default:
-                        formatted.append(currentChar);
-                        break;
-                }
-
-                if (!Character.isWhitespace(currentChar)) {
-                    prevChar = currentChar;
+    // Log records and plain text only get the lines appended since the last read formatted and added to the
+    // document. A single JSON/XML document may have changed anywhere, as may a rewritten file, so those are
+    // formatted again as a whole (which the format cache makes free when only the timestamp changed).
+    private void refreshWatchedFile() {
+        if (fileWatcher == null || documentView == null) {
+            return;
+        }
+        if (formatJob != null) {
+            watchRefreshPending = true;
+            return;
+        }
+        watchRefreshPending = false;
+        FileTail tail = fileTail;
+        Path file = watchedFile;
+        ContentType contentType = documentView.getDocument().getContentType();
+        boolean appendable = contentType == ContentType.LOG || contentType == ContentType.PLAIN;
+        long generation = formatGeneration;
+        formatJob = formatExecutor.submit(() -> {
+            try {
+                FileTail.Appended appended = appendable ? tail.readAppended() : null;
+                if (appended != null) {
+                    String text = appended.text().isEmpty() ? "" : formatAppended(appended, contentType);
+                    Platform.runLater(() -> applyAppended(generation, text));
+                    return;
                 }
+                byte[] content = Files.readAllBytes(file);
+                Platform.runLater(() -> reloadWatchedFile(generation, file, content));
+            } catch (IOException e) {
+                System.out.println("Cannot read " + file + ": " + e.getMessage());
+                Platform.runLater(() -> applyAppended(generation, ""));
             }
+        });
+    }
 
-            return formatted.toString().trim();
-
-        } catch (Exception e) {
-            System.out.println("Manual JSON formatting also failed: " + e.getMessage());
-            return json;
+    private String formatAppended(FileTail.Appended appended, ContentType contentType) {
+        String text = appended.text();
+        // the rest of a line that was incomplete when last read is added to it as is
+        String continuation = "";
+        if (appended.continuesLine()) {
+            int lineEnd = text.indexOf('\n');
+            continuation = lineEnd < 0 ? text : text.substring(0, lineEnd);
+            text = lineEnd < 0 ? "" : text.substring(lineEnd + 1);
+        }
+        if (text.isEmpty()) {
+            return continuation;
         }
+        // appended lines are routed by their own type: records are formatted like the rest of the log, anything
+        // else is added as is, since a few lines of a plain file are no JSON/XML document
+        ContentType appendedType = contentType == ContentType.LOG ? ContentType.LOG : formatEngine().detect(text);
+        if (appendedType == ContentType.LOG && formatEngine().formatterFor(ContentType.LOG) instanceof RecordFormatter records) {
+            String formatted = records.format(text);
+            text = formatted != null ? formatted : text;
+        }
+        return continuation + "\n" + text;
     }
 
-    private boolean isClosingBracketNext(String json, int currentIndex) {
-        for (int i = currentIndex + 1; i < json.length(); i++) {
-            char c = json.charAt(i);
-            if (c == '}' || c == ']') {
-                return true;
+    private void applyAppended(long generation, String text) {
+        if (generation != formatGeneration || documentView == null) {
+            return;
+        }
+        formatJob = null;
+        if (!text.isEmpty()) {
+            TextDocument document = documentView.getDocument();
+            CharSequence shown = document.getText();
+            // the appended lines start a new line; shown text that already ends with one needs no other
+            if (text.startsWith("\n") && (shown.length() == 0 || shown.charAt(shown.length() - 1) == '\n')) {
+                text = text.substring(1);
             }
-            if (!Character.isWhitespace(c)) {
-                return false;
+            document.append(text);
+            fitViewerToDocument();
+            documentView.scrollTo(document.size() - 1);
+            if (searchVisible && !searchField.getText().isEmpty()) {
+                performSearch();
             }
         }
-        return false;
+        if (watchRefreshPending) {
+            refreshWatchedFile();
+        }
     }
 
-    private void appendNewlineWithIndent(StringBuilder sb, int indentLevel) {
-        sb.append('\n');
-        sb.append("  ".repeat(Math.max(0, indentLevel)));
+    private void reloadWatchedFile(long generation, Path file, byte[] content) {
+        if (generation != formatGeneration || documentView == null || fileWatcher == null) {
+            return;
+        }
+        formatJob = null;
+        if (content.length > MAX_CONTENT_SIZE) {
+            System.out.println(file + " grew past " + (MAX_CONTENT_SIZE / 1024 / 1024) + "MB, no longer watching it");
+            stopWatching();
+            return;
+        }
+        fileTail = new FileTail(file, content);
+        startFormatting(new String(content, StandardCharsets.UTF_8), true, false);
     }
 
-
-    private String formatXml(String xml) {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-
-            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            factory.setXIncludeAware(false);
-            factory.setExpandEntityReferences(false);
-
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new InputSource(new StringReader(xml)));
-
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-            transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
-
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-
-            try (StringWriter writer = new StringWriter()) {
-                transformer.transform(new DOMSource(doc), new StreamResult(writer));
-                return writer.toString();
-            }
-
-        } catch (Exception e) {
-            System.out.println("Could not format XML: " + e.getMessage());
-            System.out.println("Trying to parse manually");
-            xml = xml.trim();
-            if (xml.isEmpty()) {
-                return null;
-            }
-            String[] tags = xml.split("(?<=>)");
-            if (tags.length == 0) {
-                return xml;
-            }
-            StringBuilder formattedXml = new StringBuilder();
-            int level = 0;
-            for (int i = 0; i < tags.length; i++) {
-                String tag = tags[i].trim();
-                String nextTag = i + 1 < tags.length ? tags[i + 1] : null;
-                boolean appendNextLine = nextTag != null && !nextTag.trim().startsWith("<");
-                String currentTag = appendNextLine ? tag + nextTag : tag;
-                if (currentTag.startsWith("</")) {
-                    level--;
-                }
-                formattedXml.append("\n").append("    ".repeat(Math.abs(level))).append(tag);
-                if (appendNextLine) {
-                    formattedXml.append(nextTag);
-                    i++;
-                }
-                if (!currentTag.contains("</") && !currentTag.startsWith("<?") && !currentTag.endsWith("?>") && !currentTag.startsWith("!--")) {
-                    level++;
-                }
-            }
-            return formattedXml.isEmpty() ? xml : formattedXml.toString().trim();
+    // Only called once the mapped document is no longer displayed or searched
+    private void releaseMappedText() {
+        if (mappedText != null) {
+            mappedText.delete();
+            mappedText = null;
         }
     }
 
     @Override
     public void stop() {
         isShuttingDown = true;
+        if (clipboardWatcher != null) {
+            clipboardWatcher.close();
+            preformatExecutor.shutdownNow();
+        }
+        formatExecutor.shutdownNow();
+        history.close();
         try {
             if (trayIcon != null) {
                 SystemTray.getSystemTray().remove(trayIcon);
@@ -863,4 +1804,4 @@ public class QuickPeekApplication extends Application implements NativeKeyListen
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,231 @@
+package uz.khoshimjonov.quickpeek;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+import uz.khoshimjonov.quickpeek.format.FormatEngine;
+import uz.khoshimjonov.quickpeek.format.FormatResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// Headless batch mode: formats files, directory trees and stdin without starting JavaFX or the native hook.
+//
+// Usage: QuickPeekCli [--threads N] [--out DIR] <file|directory|->...
+public class QuickPeekCli {
+    private static final String STDIN = "-";
+
+    private final FormatEngine formatEngine = new FormatEngine();
+    private final int threads;
+    private final Path outputDirectory;
+
+    public QuickPeekCli(int threads, Path outputDirectory) {
+        this.threads = threads;
+        this.outputDirectory = outputDirectory;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    public static int run(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outputDirectory = null;
+        List<String> inputs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads", "-t" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--out", "-o" -> outputDirectory = Path.of(args[++i]);
+                    case "--help", "-h" -> {
+                        printUsage();
+                        return 0;
+                    }
+                    default -> inputs.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            return 2;
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(STDIN);
+        }
+
+        try {
+            return new QuickPeekCli(threads, outputDirectory).format(inputs) ? 0 : 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println("quickpeek: " + e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            System.err.println("quickpeek: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: QuickPeekCli [--threads N] [--out DIR] <file|directory|->...");
+        System.err.println("Formats JSON, XML and Java object dumps. Directories are walked recursively, '-' reads stdin.");
+        System.err.println("Without --out, results are written to stdout in input order.");
+        System.err.println("With --out, files keep their path below the directory given, or their name when given directly.");
+        System.err.println("Inputs that look like JSON/XML but are not well-formed are left as is and make the exit status 1.");
+    }
+
+    // Returns false when any input could not be read or written, or was malformed as its detected type.
+    // Throws IllegalArgumentException, before anything is written, when two inputs map to the same output file.
+    public boolean format(List<String> inputs) throws IOException {
+        List<Input> resolved = new ArrayList<>();
+        for (String input : inputs) {
+            resolve(input, resolved);
+        }
+        if (outputDirectory != null) {
+            checkDistinctTargets(resolved);
+        }
+        boolean withHeaders = resolved.size() > 1;
+        boolean succeeded = true;
+
+        // At most 'window' inputs are read or formatted ahead of the one being written, which keeps memory
+        // bounded while results still stream out in input order
+        int window = threads * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "quickpeek-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            Deque<Future<Outcome>> pending = new ArrayDeque<>();
+            for (Input input : resolved) {
+                if (pending.size() == window) {
+                    succeeded &= report(pending.removeFirst(), out, withHeaders);
+                }
+                pending.addLast(executor.submit(() -> process(input)));
+            }
+            while (!pending.isEmpty()) {
+                succeeded &= report(pending.removeFirst(), out, withHeaders);
+            }
+        } finally {
+            executor.shutdownNow();
+            out.flush();
+        }
+        return succeeded;
+    }
+
+    private void resolve(String input, List<Input> resolved) throws IOException {
+        if (STDIN.equals(input)) {
+            resolved.add(new Input(null, Path.of("stdin.txt")));
+            return;
+        }
+        Path path = Path.of(input);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(Files::isRegularFile)
+                        .sorted()
+                        .forEach(file -> resolved.add(new Input(file, path.relativize(file))));
+            }
+        } else {
+            resolved.add(new Input(path, path.getFileName()));
+        }
+    }
+
+    // Two workers writing the same target at once would lose one of the results
+    private void checkDistinctTargets(List<Input> resolved) {
+        Map<Path, Input> targets = new HashMap<>();
+        for (Input input : resolved) {
+            Path target = outputDirectory.resolve(input.relativePath()).normalize();
+            Input previous = targets.putIfAbsent(target, input);
+            if (previous != null) {
+                throw new IllegalArgumentException(previous.name() + " and " + input.name()
+                        + " would both be written to " + target);
+            }
+        }
+    }
+
+    private Outcome process(Input input) {
+        String name = input.name();
+        try {
+            byte[] bytes = input.isStdin() ? System.in.readAllBytes() : Files.readAllBytes(input.path());
+            String content = new String(bytes, StandardCharsets.UTF_8);
+            FormatResult result = formatEngine.formatStrict(content);
+            String text = result.isFormatted() ? result.text() : content;
+
+            if (outputDirectory != null) {
+                Path target = outputDirectory.resolve(input.relativePath());
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+                Files.writeString(target, text, StandardCharsets.UTF_8);
+                return new Outcome(name, null, result, null);
+            }
+            return new Outcome(name, text, result, null);
+        } catch (Exception e) {
+            return new Outcome(name, null, null, e);
+        }
+    }
+
+    private boolean report(Future<Outcome> future, Writer out, boolean withHeaders) throws IOException {
+        Outcome outcome;
+        try {
+            outcome = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            System.err.println("quickpeek: " + e.getCause().getMessage());
+            return false;
+        }
+
+        if (outcome.error() != null) {
+            String reason = outcome.error() instanceof NoSuchFileException ? "no such file" : outcome.error().getMessage();
+            System.err.println("quickpeek: " + outcome.name() + ": " + reason);
+            return false;
+        }
+        boolean wellFormed = true;
+        if (!outcome.result().isFormatted() && outcome.result().contentType() == ContentType.PLAIN) {
+            System.err.println("quickpeek: " + outcome.name() + ": not recognised as JSON/XML/Java object, left as is");
+        } else if (!outcome.result().isFormatted()) {
+            System.err.println("quickpeek: " + outcome.name() + ": not well-formed " + outcome.result().contentType() + ", left as is");
+            wellFormed = false;
+        }
+        if (outcome.text() != null) {
+            if (withHeaders) {
+                out.write("==> " + outcome.name() + " <==\n");
+            }
+            out.write(outcome.text());
+            if (!outcome.text().endsWith("\n")) {
+                out.write('\n');
+            }
+            out.flush();
+        }
+        return wellFormed;
+    }
+
+    private record Input(Path path, Path relativePath) {
+        boolean isStdin() {
+            return path == null;
+        }
+
+        String name() {
+            return isStdin() ? STDIN : path.toString();
+        }
+    }
+
+    private record Outcome(String name, String text, FormatResult result, Exception error) {
+    }
+}
@@ -0,0 +1,99 @@
+package uz.khoshimjonov.quickpeek;
+
+import javafx.collections.ObservableListBase;
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TextDocument extends ObservableListBase<String> {
+    private final ContentType contentType;
+    private CharSequence text;
+    private LineIndex lineIndex;
+    private int version;
+
+    public TextDocument(CharSequence text) {
+        this(text, LineIndex.of(text), ContentType.PLAIN);
+    }
+
+    public TextDocument(CharSequence text, LineIndex lineIndex, ContentType contentType) {
+        this.text = text;
+        this.lineIndex = lineIndex;
+        this.contentType = contentType;
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    // Changes whenever the text does, so derived data such as a search index can tell it is stale
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String get(int line) {
+        return text.subSequence(lineIndex.lineStart(line), lineIndex.lineEnd(line)).toString();
+    }
+
+    @Override
+    public int size() {
+        return lineIndex.lineCount();
+    }
+
+    // Appends text as it is produced, e.g. by a streaming formatter; the last line may be extended
+    public void append(CharSequence more) {
+        if (more.length() == 0) {
+            return;
+        }
+        StringBuilder builder = text instanceof StringBuilder existing ? existing : new StringBuilder(text);
+        int oldLineCount = lineIndex.lineCount();
+        String oldLastLine = get(oldLineCount - 1);
+
+        builder.append(more);
+        text = builder;
+        version++;
+        lineIndex = lineIndex.appended(builder);
+
+        beginChange();
+        if (!oldLastLine.equals(get(oldLineCount - 1))) {
+            nextSet(oldLineCount - 1, oldLastLine);
+        }
+        if (lineIndex.lineCount() > oldLineCount) {
+            nextAdd(oldLineCount, lineIndex.lineCount());
+        }
+        endChange();
+    }
+
+    @Override
+    public String set(int line, String newLine) {
+        String oldLine = get(line);
+        if (oldLine.equals(newLine)) {
+            return oldLine;
+        }
+
+        int start = lineIndex.lineStart(line);
+        int end = lineIndex.lineEnd(line);
+        StringBuilder updated = new StringBuilder(text.length() - (end - start) + newLine.length());
+        updated.append(text, 0, start).append(newLine).append(text, end, text.length());
+
+        int oldLineCount = lineIndex.lineCount();
+        text = updated.toString();
+        version++;
+        lineIndex = LineIndex.of(text);
+        int insertedLines = lineIndex.lineCount() - oldLineCount + 1;
+
+        beginChange();
+        nextReplace(line, line + insertedLines, new ArrayList<>(List.of(oldLine)));
+        endChange();
+        return oldLine;
+    }
+}
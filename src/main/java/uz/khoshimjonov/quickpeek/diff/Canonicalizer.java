@@ -0,0 +1,34 @@
+package uz.khoshimjonov.quickpeek.diff;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+import uz.khoshimjonov.quickpeek.format.FormatEngine;
+import uz.khoshimjonov.quickpeek.format.Formatter;
+import uz.khoshimjonov.quickpeek.format.JsonFormatter;
+import uz.khoshimjonov.quickpeek.format.XmlFormatter;
+
+// Brings a payload into a canonical layout before it is compared, so that a diff shows changes in content
+// rather than in member order or indentation: JSON with members sorted by key, XML re-indented from its DOM,
+// other types through their formatter. Content that cannot be parsed as its type is compared as it is.
+public final class Canonicalizer {
+    private final FormatEngine engine;
+
+    public Canonicalizer(FormatEngine engine) {
+        this.engine = engine;
+    }
+
+    public String canonicalize(String source, ContentType contentType) {
+        Formatter formatter = engine.formatterFor(contentType);
+        String trimmed = source.trim();
+        String canonical;
+        if (formatter instanceof JsonFormatter json) {
+            canonical = json.formatCanonical(trimmed);
+        } else if (formatter instanceof XmlFormatter xml) {
+            canonical = xml.formatCanonical(trimmed);
+        } else if (formatter != null) {
+            canonical = formatter.formatStrict(trimmed);
+        } else {
+            canonical = null;
+        }
+        return canonical != null ? canonical : source;
+    }
+}
@@ -0,0 +1,14 @@
+package uz.khoshimjonov.quickpeek.diff;
+
+// One row of a side-by-side diff. Lines are 0-based indexes into the left and right text, -1 where a side
+// has no line. A COLLAPSED row stands for 'lines' unchanged lines starting at leftLine and rightLine.
+public record DiffRow(Kind kind, int leftLine, int rightLine, int lines) {
+
+    public enum Kind {
+        SAME,
+        CHANGED,
+        DELETED,
+        INSERTED,
+        COLLAPSED
+    }
+}
@@ -0,0 +1,309 @@
+package uz.khoshimjonov.quickpeek.diff;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Line diff of two texts using Myers' algorithm in its linear-space form: the middle snake of each range is
+// found by searching from both ends at once, and the two halves on either side of it are solved in turn.
+// Lines are interned to ints first, so comparing two lines is one int comparison. Time is O((N + M) D) for
+// D changed lines; a diff that runs past the time limit marks what is left as replaced, which is correct
+// but not minimal.
+public final class LineDiff {
+    // Unchanged lines kept around each change; longer unchanged runs become one COLLAPSED row
+    public static final int CONTEXT_LINES = 3;
+
+    private final String left;
+    private final String right;
+    private final int[] leftStarts;
+    private final int[] rightStarts;
+    private final List<DiffRow> rows;
+    private final int deletedLines;
+    private final int insertedLines;
+    private final boolean minimal;
+
+    private LineDiff(String left, String right, int[] leftStarts, int[] rightStarts, boolean[] deleted,
+                     boolean[] inserted, boolean minimal) {
+        this.left = left;
+        this.right = right;
+        this.leftStarts = leftStarts;
+        this.rightStarts = rightStarts;
+        this.minimal = minimal;
+        int deletedCount = 0;
+        for (boolean line : deleted) {
+            deletedCount += line ? 1 : 0;
+        }
+        int insertedCount = 0;
+        for (boolean line : inserted) {
+            insertedCount += line ? 1 : 0;
+        }
+        this.deletedLines = deletedCount;
+        this.insertedLines = insertedCount;
+        this.rows = buildRows(deleted, inserted);
+    }
+
+    public static LineDiff compute(String left, String right, long timeoutMillis) {
+        int[] leftStarts = lineStarts(left);
+        int[] rightStarts = lineStarts(right);
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = intern(left, leftStarts, ids);
+        int[] b = intern(right, rightStarts, ids);
+        Search search = new Search(a, b, System.nanoTime() + timeoutMillis * 1_000_000);
+        search.run();
+        return new LineDiff(left, right, leftStarts, rightStarts, search.deleted, search.inserted, search.minimal);
+    }
+
+    public List<DiffRow> rows() {
+        return rows;
+    }
+
+    public int deletedLines() {
+        return deletedLines;
+    }
+
+    public int insertedLines() {
+        return insertedLines;
+    }
+
+    public boolean isIdentical() {
+        return deletedLines == 0 && insertedLines == 0;
+    }
+
+    // False when the time limit cut the search short
+    public boolean isMinimal() {
+        return minimal;
+    }
+
+    public int leftLineCount() {
+        return leftStarts.length;
+    }
+
+    public int rightLineCount() {
+        return rightStarts.length;
+    }
+
+    public String leftLine(int line) {
+        return line(left, leftStarts, line);
+    }
+
+    public String rightLine(int line) {
+        return line(right, rightStarts, line);
+    }
+
+    // The SAME rows a COLLAPSED row stands for
+    public List<DiffRow> expand(DiffRow collapsed) {
+        List<DiffRow> expanded = new ArrayList<>(collapsed.lines());
+        for (int i = 0; i < collapsed.lines(); i++) {
+            expanded.add(new DiffRow(DiffRow.Kind.SAME, collapsed.leftLine() + i, collapsed.rightLine() + i, 1));
+        }
+        return expanded;
+    }
+
+    private static String line(String text, int[] starts, int line) {
+        int end = line + 1 < starts.length ? starts[line + 1] - 1 : text.length();
+        // only the last line can still hold its terminator, when the text ends with one
+        if (end > starts[line] && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end > starts[line] && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return text.substring(starts[line], end);
+    }
+
+    private static int[] lineStarts(String text) {
+        int[] starts = new int[64];
+        int count = 0;
+        int start = 0;
+        while (true) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = start;
+            int newLine = text.indexOf('\n', start);
+            if (newLine < 0) {
+                break;
+            }
+            start = newLine + 1;
+        }
+        // a trailing newline does not start another line
+        if (count > 1 && starts[count - 1] == text.length()) {
+            count--;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static int[] intern(String text, int[] starts, Map<String, Integer> ids) {
+        int[] lineIds = new int[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            Integer id = ids.putIfAbsent(line(text, starts, i), ids.size());
+            lineIds[i] = id != null ? id : ids.size() - 1;
+        }
+        return lineIds;
+    }
+
+    // Pairs deleted with inserted lines of the same change as CHANGED rows, and collapses unchanged runs
+    private List<DiffRow> buildRows(boolean[] deleted, boolean[] inserted) {
+        List<DiffRow> built = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < deleted.length || j < inserted.length) {
+            int sameStart = i;
+            int sameRightStart = j;
+            while (i < deleted.length && j < inserted.length && !deleted[i] && !inserted[j]) {
+                i++;
+                j++;
+            }
+            addSame(built, sameStart, sameRightStart, i - sameStart,
+                    sameStart == 0, i == deleted.length && j == inserted.length);
+
+            int deletedEnd = i;
+            while (deletedEnd < deleted.length && deleted[deletedEnd]) {
+                deletedEnd++;
+            }
+            int insertedEnd = j;
+            while (insertedEnd < inserted.length && inserted[insertedEnd]) {
+                insertedEnd++;
+            }
+            while (i < deletedEnd || j < insertedEnd) {
+                if (i < deletedEnd && j < insertedEnd) {
+                    built.add(new DiffRow(DiffRow.Kind.CHANGED, i++, j++, 1));
+                } else if (i < deletedEnd) {
+                    built.add(new DiffRow(DiffRow.Kind.DELETED, i++, -1, 1));
+                } else {
+                    built.add(new DiffRow(DiffRow.Kind.INSERTED, -1, j++, 1));
+                }
+            }
+        }
+        return built;
+    }
+
+    private static void addSame(List<DiffRow> built, int leftStart, int rightStart, int count,
+                                boolean atStart, boolean atEnd) {
+        int head = atStart ? 0 : CONTEXT_LINES;
+        int tail = atEnd ? 0 : CONTEXT_LINES;
+        if (count <= head + tail + 1) {
+            head = count;
+            tail = 0;
+        }
+        for (int k = 0; k < head; k++) {
+            built.add(new DiffRow(DiffRow.Kind.SAME, leftStart + k, rightStart + k, 1));
+        }
+        int collapsed = count - head - tail;
+        if (collapsed > 0) {
+            built.add(new DiffRow(DiffRow.Kind.COLLAPSED, leftStart + head, rightStart + head, collapsed));
+        }
+        for (int k = count - tail; k < count; k++) {
+            built.add(new DiffRow(DiffRow.Kind.SAME, leftStart + k, rightStart + k, 1));
+        }
+    }
+
+    // Marks the lines of 'a' to delete and of 'b' to insert. Ranges wait on a stack rather than in recursion,
+    // so a diff with many changes cannot overflow the thread stack.
+    private static final class Search {
+        final int[] a;
+        final int[] b;
+        final boolean[] deleted;
+        final boolean[] inserted;
+        final long deadline;
+        final int[] forward;
+        final int[] backward;
+        final int offset;
+        boolean minimal = true;
+
+        Search(int[] a, int[] b, long deadline) {
+            this.a = a;
+            this.b = b;
+            this.deleted = new boolean[a.length];
+            this.inserted = new boolean[b.length];
+            this.deadline = deadline;
+            this.offset = a.length + b.length + 2;
+            this.forward = new int[2 * offset + 1];
+            this.backward = new int[2 * offset + 1];
+        }
+
+        void run() {
+            Deque<int[]> ranges = new ArrayDeque<>();
+            ranges.push(new int[]{0, a.length, 0, b.length});
+            while (!ranges.isEmpty()) {
+                int[] range = ranges.pop();
+                int aLo = range[0];
+                int aHi = range[1];
+                int bLo = range[2];
+                int bHi = range[3];
+                while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+                    aLo++;
+                    bLo++;
+                }
+                while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+                    aHi--;
+                    bHi--;
+                }
+                long split = aLo == aHi || bLo == bHi ? -1 : middleSnake(aLo, aHi, bLo, bHi);
+                if (split < 0) {
+                    Arrays.fill(deleted, aLo, aHi, true);
+                    Arrays.fill(inserted, bLo, bHi, true);
+                    continue;
+                }
+                int x = (int) (split >>> 32);
+                int y = (int) split;
+                ranges.push(new int[]{x, aHi, y, bHi});
+                ranges.push(new int[]{aLo, x, bLo, y});
+            }
+        }
+
+        // A point on a shortest edit path through the range, packed as (x << 32 | y), or -1 once past the
+        // deadline. Both ends of the range differ, so the path has at least two edits and the point splits it
+        // into two smaller problems.
+        private long middleSnake(int aLo, int aHi, int bLo, int bHi) {
+            int n = aHi - aLo;
+            int m = bHi - bLo;
+            int delta = n - m;
+            boolean odd = (delta & 1) != 0;
+            int max = (n + m + 1) / 2;
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+            for (int d = 0; d <= max; d++) {
+                if (System.nanoTime() > deadline) {
+                    minimal = false;
+                    return -1;
+                }
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])
+                            ? forward[offset + k + 1]
+                            : forward[offset + k - 1] + 1;
+                    int y = x - k;
+                    while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+                    if (odd && k >= delta - (d - 1) && k <= delta + (d - 1)
+                            && x + backward[offset + delta - k] >= n) {
+                        return (long) (aLo + x) << 32 | (bLo + y);
+                    }
+                }
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])
+                            ? backward[offset + k + 1]
+                            : backward[offset + k - 1] + 1;
+                    int y = x - k;
+                    while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + k] = x;
+                    if (!odd && delta - k >= -d && delta - k <= d
+                            && x + forward[offset + delta - k] >= n) {
+                        return (long) (aHi - x) << 32 | (bHi - y);
+                    }
+                }
+            }
+            throw new IllegalStateException("No middle snake found");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package uz.khoshimjonov.quickpeek.format;
+
+// Guesses the format of a payload from one pass over its first few KB plus its last significant character,
+// so detection costs the same for a one-line snippet and a 10 MB dump. The first significant character
+// decides between the structured formats: XML that contains '{' stays XML, and JSON that embeds markup
+// stays JSON.
+public final class ContentSniffer {
+    public static final int PREFIX_CHARS = 8 * 1024;
+
+    public enum Kind {
+        JSON(ContentType.JSON),
+        NDJSON(ContentType.LOG),
+        XML(ContentType.XML),
+        JAVA_OBJECT(ContentType.JAVA_OBJECT),
+        LOG(ContentType.LOG),
+        YAML(ContentType.PLAIN),
+        PROPERTIES(ContentType.PLAIN),
+        PLAIN(ContentType.PLAIN);
+
+        private final ContentType contentType;
+
+        Kind(ContentType contentType) {
+            this.contentType = contentType;
+        }
+
+        // YAML and properties have no formatter and are shown as they are
+        public ContentType contentType() {
+            return contentType;
+        }
+    }
+
+    // Confidence runs from 0 to 100; PLAIN always has 0, meaning nothing was recognised
+    public record Sniff(Kind kind, int confidence) {
+        static final Sniff NOTHING = new Sniff(Kind.PLAIN, 0);
+    }
+
+    private ContentSniffer() {
+    }
+
+    public static Sniff sniff(CharSequence content) {
+        return sniff(content, true);
+    }
+
+    // For the start of content that continues past 'prefix', e.g. the first block of a large file: its
+    // end is unknown, and its last line may be cut off
+    public static Sniff sniffPrefix(CharSequence prefix) {
+        return sniff(prefix, false);
+    }
+
+    private static Sniff sniff(CharSequence text, boolean complete) {
+        int start = 0;
+        int length = text.length();
+        while (start < length && (Character.isWhitespace(text.charAt(start)) || text.charAt(start) == '\uFEFF')) {
+            start++;
+        }
+        if (start == length) {
+            return Sniff.NOTHING;
+        }
+        char last = 0;
+        if (complete) {
+            int end = length;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+            last = text.charAt(end - 1);
+        }
+        int limit = Math.min(length, start + PREFIX_CHARS);
+        boolean windowComplete = complete && limit == length;
+        Features features = new Features();
+        features.scan(text, start, limit, windowComplete);
+        return classify(text, start, limit, last, features);
+    }
+
+    private static Sniff classify(CharSequence text, int start, int limit, char last, Features features) {
+        char first = text.charAt(start);
+        boolean endKnown = last != 0;
+
+        // Line records come first, since NDJSON also starts with '{' and a log may start with '<'
+        if (features.lines >= 2 && features.jsonLines == features.lines) {
+            return new Sniff(Kind.NDJSON, 95);
+        }
+        if (features.records >= 2 && features.records * 2 >= features.lines) {
+            return new Sniff(Kind.LOG, 50 + 45 * features.records / features.lines);
+        }
+        if (first == '{' || (first == '[' && startsJsonValue(text, start + 1, limit))) {
+            char closer = first == '{' ? '}' : ']';
+            return new Sniff(Kind.JSON, !endKnown ? 80 : last == closer ? 95 : 60);
+        }
+        if (first == '<') {
+            if (startsWith(text, start, limit, "<?xml")) {
+                return new Sniff(Kind.XML, 100);
+            }
+            return new Sniff(Kind.XML, !endKnown ? 80 : last == '>' ? 90 : 60);
+        }
+        if (looksLikeJavaObject(text, start, limit) && (!endKnown || last == ')' || last == '}')) {
+            return new Sniff(Kind.JAVA_OBJECT, features.assignments > 0 ? 90 : 70);
+        }
+        int entries = features.lines - features.comments;
+        if (entries >= 2 || features.yamlMarker) {
+            if (features.propertyLines * 10 >= entries * 8 && features.propertyLines > features.yamlLines) {
+                return new Sniff(Kind.PROPERTIES, 100 * features.propertyLines / entries);
+            }
+            if (features.yamlMarker || features.yamlLines * 10 >= entries * 8) {
+                return new Sniff(Kind.YAML, entries == 0 ? 60 : Math.max(60, 100 * features.yamlLines / entries));
+            }
+        }
+        return Sniff.NOTHING;
+    }
+
+    // Whether a JSON value, or the ']' of an empty array, can start at 'from'. Tells an array apart from a
+    // bracketed log prefix such as [main] or [12:00:01].
+    static boolean startsJsonValue(CharSequence text, int from, int limit) {
+        int i = from;
+        while (i < limit && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i == limit) {
+            return true;
+        }
+        char c = text.charAt(i);
+        if (c == '{' || c == '[' || c == '"' || c == ']') {
+            return true;
+        }
+        if (c == 't' || c == 'f' || c == 'n') {
+            return startsWith(text, i, limit, "true") || startsWith(text, i, limit, "false")
+                    || startsWith(text, i, limit, "null");
+        }
+        if (c != '-' && (c < '0' || c > '9')) {
+            return false;
+        }
+        i++;
+        while (i < limit && ((text.charAt(i) >= '0' && text.charAt(i) <= '9') || text.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < limit && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < limit && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            while (i < limit && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                i++;
+            }
+        }
+        return i == limit || Character.isWhitespace(text.charAt(i)) || text.charAt(i) == ',' || text.charAt(i) == ']';
+    }
+
+    // Identifier, optional whitespace, then '(' or '{' not immediately closed, as in Person(name=Ann)
+    private static boolean looksLikeJavaObject(CharSequence text, int start, int limit) {
+        if (!JavaObjectFormatter.isIdentifierStart(text.charAt(start))) {
+            return false;
+        }
+        int i = start + 1;
+        while (i < limit && JavaObjectFormatter.isIdentifierPart(text.charAt(i))) {
+            i++;
+        }
+        while (i < limit && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        if (i + 1 >= limit || (text.charAt(i) != '(' && text.charAt(i) != '{')) {
+            return false;
+        }
+        char next = text.charAt(i + 1);
+        return next != ')' && next != '}';
+    }
+
+    private static boolean startsWith(CharSequence text, int start, int limit, String prefix) {
+        if (limit - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Per-line counts over the window; a line cut off by the window's end is left out
+    private static final class Features {
+        int lines;
+        int comments;
+        int records;
+        int jsonLines;
+        int yamlLines;
+        int propertyLines;
+        int assignments;
+        boolean yamlMarker;
+
+        void scan(CharSequence text, int start, int limit, boolean complete) {
+            int lineStart = start;
+            for (int i = start; i < limit; i++) {
+                char c = text.charAt(i);
+                if (c == '=') {
+                    assignments++;
+                }
+                if (c == '\n') {
+                    line(text, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (complete && lineStart < limit) {
+                line(text, lineStart, limit);
+            }
+        }
+
+        private void line(CharSequence text, int from, int to) {
+            while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+                to--;
+            }
+            if (to == from) {
+                return;
+            }
+            lines++;
+            String line = text.subSequence(from, to).toString();
+            int indent = 0;
+            while (indent < line.length() && (line.charAt(indent) == ' ' || line.charAt(indent) == '\t')) {
+                indent++;
+            }
+            char first = line.charAt(indent);
+            char last = line.charAt(line.length() - 1);
+
+            if (RecordFormatter.isRecord(line)) {
+                records++;
+            }
+            if (indent == 0 && ((first == '{' && last == '}') || (first == '[' && last == ']'))) {
+                jsonLines++;
+            }
+            if (first == '#' || first == '!') {
+                comments++;
+                return;
+            }
+            if (indent == 0 && (line.equals("---") || line.startsWith("%YAML"))) {
+                yamlMarker = true;
+                comments++;
+                return;
+            }
+            if (line.startsWith("- ", indent) || line.equals("-")) {
+                yamlLines++;
+                return;
+            }
+            int keyEnd = keyEnd(line, indent);
+            if (keyEnd == indent) {
+                return;
+            }
+            int separator = keyEnd;
+            while (separator < line.length() && (line.charAt(separator) == ' ' || line.charAt(separator) == '\t')) {
+                separator++;
+            }
+            if (separator == line.length()) {
+                return;
+            }
+            char c = line.charAt(separator);
+            if (c == ':' && (separator + 1 == line.length() || line.charAt(separator + 1) == ' ')) {
+                yamlLines++;
+            } else if (c == '=' && indent == 0) {
+                propertyLines++;
+            }
+        }
+
+        // End of a bare key such as server.port or db-url. Quoted keys are left out: "name": value lines
+        // are far more often a JSON fragment than YAML.
+        private static int keyEnd(String line, int from) {
+            int i = from;
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != '-' && c != '/') {
+                    break;
+                }
+                i++;
+            }
+            return i;
+        }
+    }
+}
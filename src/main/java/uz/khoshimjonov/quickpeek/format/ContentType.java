@@ -0,0 +1,9 @@
+package uz.khoshimjonov.quickpeek.format;
+
+public enum ContentType {
+    JSON,
+    XML,
+    JAVA_OBJECT,
+    LOG,
+    PLAIN
+}
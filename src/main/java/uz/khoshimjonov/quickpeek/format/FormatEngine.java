@@ -0,0 +1,98 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import java.util.List;
+
+public class FormatEngine {
+    private final List<Formatter> formatters;
+
+    public FormatEngine() {
+        this(new JsonFormatter(), new XmlFormatter(), new JavaObjectFormatter());
+    }
+
+    private FormatEngine(JsonFormatter json, XmlFormatter xml, JavaObjectFormatter javaObject) {
+        // records first: a log whose lines embed JSON would otherwise be taken for one broken document
+        this(List.of(new RecordFormatter(json, xml, javaObject), json, xml, javaObject));
+    }
+
+    // Formatters are consulted in order, so more specific detectors should come first
+    public FormatEngine(List<Formatter> formatters) {
+        this.formatters = List.copyOf(formatters);
+    }
+
+    public List<Formatter> getFormatters() {
+        return formatters;
+    }
+
+    public Formatter formatterFor(ContentType contentType) {
+        for (Formatter formatter : formatters) {
+            if (formatter.contentType() == contentType) {
+                return formatter;
+            }
+        }
+        return null;
+    }
+
+    public ContentType detect(String content) {
+        Formatter formatter = detectFormatter(content);
+        return formatter != null ? formatter.contentType() : ContentType.PLAIN;
+    }
+
+    public FormatResult format(String content) {
+        String trimmed = content.trim();
+        Formatter formatter = detectFormatter(trimmed);
+        return formatter != null ? format(formatter, trimmed) : new FormatResult(null, ContentType.PLAIN);
+    }
+
+    // Skips detection when the caller already knows the type
+    public FormatResult format(String content, ContentType contentType) {
+        Formatter formatter = formatterFor(contentType);
+        return formatter != null ? format(formatter, content.trim()) : new FormatResult(null, contentType);
+    }
+
+    // Without the formatters' lenient fallbacks: text is null unless the content is well-formed as the
+    // detected type, for callers that must not pass off a best-effort guess as formatted output
+    public FormatResult formatStrict(String content) {
+        String trimmed = content.trim();
+        Formatter formatter = detectFormatter(trimmed);
+        if (formatter == null) {
+            return new FormatResult(null, ContentType.PLAIN);
+        }
+        try {
+            return new FormatResult(formatter.formatStrict(trimmed), formatter.contentType());
+        } catch (Exception e) {
+            return new FormatResult(null, formatter.contentType());
+        }
+    }
+
+    private FormatResult format(Formatter formatter, String content) {
+        try {
+            return new FormatResult(formatter.format(content), formatter.contentType());
+        } catch (Exception e) {
+            System.err.println("Formatting as " + formatter.contentType() + " failed: " + e.getMessage());
+            return new FormatResult(null, formatter.contentType());
+        }
+    }
+
+    // The sniffer decides from a bounded prefix; only when it recognises nothing are the formatters asked,
+    // on that same prefix, so that fragments and plugged-in formats still get a chance
+    private Formatter detectFormatter(String content) {
+        ContentSniffer.Sniff sniff = ContentSniffer.sniff(content);
+        if (sniff.kind() != ContentSniffer.Kind.PLAIN) {
+            return formatterFor(sniff.kind().contentType());
+        }
+        int start = 0;
+        while (start < content.length() && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        String prefix = content.substring(start, Math.min(content.length(), start + ContentSniffer.PREFIX_CHARS)).strip();
+        if (prefix.isEmpty()) {
+            return null;
+        }
+        for (Formatter formatter : formatters) {
+            if (formatter.accepts(prefix)) {
+                return formatter;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package uz.khoshimjonov.quickpeek.format;
+
+// Outcome of formatting: text is null when the content was not recognised or could not be formatted
+public record FormatResult(String text, ContentType contentType) {
+
+    public boolean isFormatted() {
+        return text != null;
+    }
+}
@@ -0,0 +1,19 @@
+package uz.khoshimjonov.quickpeek.format;
+
+// Formatting strategy for one content type. Implementations must not depend on the UI so they can run in
+// batch tools and benchmarks; they are expected to be safe for use from several threads.
+public interface Formatter {
+
+    ContentType contentType();
+
+    // Cheap check on trimmed content; the engine asks formatters in order and uses the first that accepts
+    boolean accepts(String content);
+
+    // Returns the formatted content, or null when it cannot be formatted as this type
+    String format(String content);
+
+    // Like format, but without lenient fallbacks: returns null unless the content is well-formed
+    default String formatStrict(String content) {
+        return format(content);
+    }
+}
@@ -0,0 +1,448 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+public class JavaObjectFormatter implements Formatter {
+
+    @Override
+    public ContentType contentType() {
+        return ContentType.JAVA_OBJECT;
+    }
+
+    @Override
+    public boolean accepts(String content) {
+        return isJavaObjectString(content);
+    }
+
+    @Override
+    public String format(String content) {
+        return formatJavaObject(content);
+    }
+
+    public String formatJavaObject(String objectString) {
+        try {
+            objectString = objectString.trim();
+            if (objectString.isEmpty()) {
+                return null;
+            }
+
+            if (!isJavaObjectString(objectString)) {
+                return null;
+            }
+
+            return formatJavaObjectManually(objectString);
+
+        } catch (Exception e) {
+            System.err.println("Java object formatting failed: " + e.getMessage());
+            return objectString;
+        }
+    }
+
+    public boolean isJavaObjectString(String str) {
+        return looksLikeJavaObject(str, 0, str.length(), true);
+    }
+
+    // Hand-written equivalent of ^[A-Za-z_$][A-Za-z0-9_$.]*\s*[({][^})].*[)}]$
+    private static boolean looksLikeJavaObject(String str, int from, int to, boolean checkLineTerminators) {
+        if (from >= to || !isIdentifierStart(str.charAt(from))) {
+            return false;
+        }
+        int i = from + 1;
+        while (i < to && isIdentifierPart(str.charAt(i))) {
+            i++;
+        }
+        while (i < to && isRegexWhitespace(str.charAt(i))) {
+            i++;
+        }
+        if (i >= to || (str.charAt(i) != '(' && str.charAt(i) != '{')) {
+            return false;
+        }
+        i++;
+        if (i >= to || str.charAt(i) == '}' || str.charAt(i) == ')') {
+            return false;
+        }
+        i++;
+        char last = str.charAt(to - 1);
+        if (to - 1 < i || (last != ')' && last != '}')) {
+            return false;
+        }
+        if (checkLineTerminators) {
+            for (int k = i; k < to - 1; k++) {
+                if (isLineTerminator(str.charAt(k))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String formatJavaObjectManually(String objectString) {
+        try {
+            StringBuilder formatted = new StringBuilder(objectString.length() + (objectString.length() >> 1));
+            new Emitter(objectString, formatted).format(0, objectString.length());
+            return formatted.toString();
+
+        } catch (Exception e) {
+            System.err.println("Error in manual Java object formatting: " + e.getMessage());
+            return objectString;
+        }
+    }
+
+    enum ValueKind {
+        NULL,
+        QUOTED,
+        INTEGER,
+        DECIMAL,
+        BOOLEAN,
+        ENUM_CONSTANT,
+        ARRAY,
+        OBJECT,
+        TEXT
+    }
+
+    // Classifies the trimmed, non-empty value source[from, to) without allocating; checks run in the
+    // same order the formatter has always applied them
+    static ValueKind classify(String source, int from, int to) {
+        char first = source.charAt(from);
+        char last = source.charAt(to - 1);
+        int length = to - from;
+
+        if (length == 4 && source.startsWith("null", from)) {
+            return ValueKind.NULL;
+        } else if ((first == '\'' && last == '\'') || (first == '"' && last == '"')) {
+            return ValueKind.QUOTED;
+        }
+
+        int digitsStart = first == '-' ? from + 1 : from;
+        int dot = -1;
+        boolean digitsOnly = digitsStart < to;
+        for (int i = digitsStart; i < to && digitsOnly; i++) {
+            char c = source.charAt(i);
+            if (c == '.' && dot < 0) {
+                dot = i;
+            } else if (c < '0' || c > '9') {
+                digitsOnly = false;
+            }
+        }
+        if (digitsOnly && dot < 0) {
+            return ValueKind.INTEGER;
+        } else if (digitsOnly && dot < to - 1) {
+            return ValueKind.DECIMAL;
+        }
+
+        if ((length == 4 && source.regionMatches(true, from, "true", 0, 4))
+                || (length == 5 && source.regionMatches(true, from, "false", 0, 5))) {
+            return ValueKind.BOOLEAN;
+        } else if (first == '[' && last == ']') {
+            return ValueKind.ARRAY;
+        } else if (looksLikeJavaObject(source, from, to, false)) {
+            return ValueKind.OBJECT;
+        }
+
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            if ((c < 'A' || c > 'Z') && c != '_') {
+                return ValueKind.TEXT;
+            }
+        }
+        return ValueKind.ENUM_CONSTANT;
+    }
+
+    static boolean isIdentifierStart(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_' || c == '$';
+    }
+
+    static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9') || c == '.';
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    // Bracket pairs are located once up front, so every nesting level scans only its own characters
+    // and nested output is indented as it is written rather than re-split by each enclosing level.
+    private static final class Emitter {
+        private final String source;
+        private final StringBuilder out;
+        private int[] openPositions = new int[64];
+        private int[] closePositions = new int[64];
+        private int pairCount;
+
+        Emitter(String source, StringBuilder out) {
+            this.source = source;
+            this.out = out;
+            indexBrackets();
+        }
+
+        private void indexBrackets() {
+            int[] stack = new int[16];
+            int depth = 0;
+            int length = source.length();
+            int i = 0;
+            while (i < length) {
+                char c = source.charAt(i);
+                if (isQuote(c)) {
+                    i = skipString(i, length);
+                    continue;
+                }
+                if (c == '(' || c == '{' || c == '[') {
+                    if (pairCount == openPositions.length) {
+                        openPositions = Arrays.copyOf(openPositions, pairCount * 2);
+                        closePositions = Arrays.copyOf(closePositions, pairCount * 2);
+                    }
+                    openPositions[pairCount] = i;
+                    closePositions[pairCount] = -1;
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = pairCount++;
+                } else if ((c == ')' || c == '}' || c == ']') && depth > 0) {
+                    closePositions[stack[--depth]] = i;
+                }
+                i++;
+            }
+        }
+
+        private int closingPosition(int openPosition) {
+            int pair = Arrays.binarySearch(openPositions, 0, pairCount, openPosition);
+            return pair >= 0 ? closePositions[pair] : -1;
+        }
+
+        // Returns the position just past the closing delimiter, or 'to' for an unterminated string
+        private int skipString(int start, int to) {
+            char delimiter = source.charAt(start);
+            boolean escaped = false;
+            for (int i = start + 1; i < to; i++) {
+                char c = source.charAt(i);
+                if (isQuote(c) && !escaped) {
+                    if (c == delimiter) {
+                        return i + 1;
+                    }
+                } else {
+                    escaped = (c == '\\' && !escaped);
+                }
+            }
+            return to;
+        }
+
+        // Nested objects wait on a stack rather than in recursion, so a deeply nested dump cannot overflow
+        // the thread stack
+        void format(int from, int to) {
+            Deque<Level> levels = new ArrayDeque<>();
+            levels.push(open(from, to, 0));
+            while (!levels.isEmpty()) {
+                Level level = levels.peek();
+                if (level.commaAfterNested) {
+                    out.append(',');
+                    level.commaAfterNested = false;
+                }
+                if (level.done) {
+                    newLine(level.depth);
+                    out.append(level.closingBracket);
+                    levels.pop();
+                    continue;
+                }
+
+                int fieldStart = level.position;
+                int contentEnd = level.contentEnd;
+                int firstEquals = -1;
+                boolean skippedBeforeEquals = false;
+                int i = fieldStart;
+                while (i < contentEnd) {
+                    char c = source.charAt(i);
+                    if (isQuote(c)) {
+                        skippedBeforeEquals |= firstEquals < 0;
+                        i = skipString(i, contentEnd);
+                        continue;
+                    }
+                    if (c == '(' || c == '{' || c == '[') {
+                        skippedBeforeEquals |= firstEquals < 0;
+                        int close = closingPosition(i);
+                        i = close < 0 || close >= contentEnd ? contentEnd : close + 1;
+                        continue;
+                    }
+                    if (c == ',') {
+                        break;
+                    }
+                    if (c == '=' && firstEquals < 0) {
+                        firstEquals = i;
+                    }
+                    i++;
+                }
+
+                boolean hasComma = i < contentEnd;
+                if (skippedBeforeEquals) {
+                    // the first '=' of the field may sit inside a string or nested value that was jumped over
+                    firstEquals = indexOf('=', fieldStart, i);
+                }
+                level.position = i + 1;
+                level.done = !hasComma;
+                Level nested = formatField(fieldStart, i, firstEquals, hasComma && i + 1 < contentEnd, level);
+                if (nested != null) {
+                    levels.push(nested);
+                }
+            }
+        }
+
+        // Writes the name and opening bracket of the object in source[from, to)
+        private Level open(int from, int to, int depth) {
+            int openBracket = from;
+            while (source.charAt(openBracket) != '(' && source.charAt(openBracket) != '{') {
+                openBracket++;
+            }
+            char bracketType = source.charAt(openBracket);
+            char closingBracket = (bracketType == '(') ? ')' : '}';
+            int contentEnd = source.charAt(to - 1) == closingBracket && to - 1 > openBracket ? to - 1 : to;
+
+            appendTrimmed(from, openBracket);
+            out.append(bracketType);
+            return new Level(openBracket + 1, contentEnd, closingBracket, depth);
+        }
+
+        // Returns the level of a nested object value, whose fields are written before the trailing comma
+        private Level formatField(int from, int to, int equals, boolean trailingComma, Level level) {
+            while (from < to && source.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && source.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            if (from == to) {
+                return null;
+            }
+
+            newLine(level.depth);
+            out.append("  ");
+            if (equals < 0) {
+                out.append(source, from, to);
+            } else {
+                appendTrimmed(from, equals);
+                out.append(" = ");
+                Level nested = formatFieldValue(equals + 1, to, level.depth);
+                if (nested != null) {
+                    level.commaAfterNested = trailingComma;
+                    return nested;
+                }
+            }
+            if (trailingComma) {
+                out.append(',');
+            }
+            return null;
+        }
+
+        private Level formatFieldValue(int from, int to, int depth) {
+            while (from < to && source.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && source.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            if (from == to) {
+                out.append("null");
+                return null;
+            }
+
+            switch (classify(source, from, to)) {
+                case NULL -> out.append("null");
+                case BOOLEAN -> out.append(source.charAt(from) == 't' || source.charAt(from) == 'T' ? "true" : "false");
+                case ARRAY -> formatArrayValue(source.substring(from, to), depth);
+                case OBJECT -> {
+                    return open(from, to, depth + 1);
+                }
+                case TEXT -> {
+                    char first = source.charAt(from);
+                    if (first != '\'' && first != '"' && indexOf(' ', from, to) >= 0) {
+                        out.append('"').append(source, from, to).append('"');
+                    } else {
+                        out.append(source, from, to);
+                    }
+                }
+                default -> out.append(source, from, to);
+            }
+            return null;
+        }
+
+        private int indexOf(char c, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (source.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void formatArrayValue(String arrayValue, int depth) {
+            String content = arrayValue.substring(1, arrayValue.length() - 1).trim();
+            if (content.isEmpty()) {
+                out.append("[]");
+                return;
+            }
+
+            String[] elements = content.split(",");
+            if (elements.length <= 3) {
+                out.append('[');
+                for (int i = 0; i < elements.length; i++) {
+                    if (i > 0) out.append(", ");
+                    out.append(elements[i].trim());
+                }
+                out.append(']');
+            } else {
+                out.append('[');
+                for (int i = 0; i < elements.length; i++) {
+                    newLine(depth);
+                    out.append("    ").append(elements[i].trim());
+                    if (i < elements.length - 1) {
+                        out.append(',');
+                    }
+                }
+                newLine(depth);
+                out.append("  ]");
+            }
+        }
+
+        private void appendTrimmed(int from, int to) {
+            while (from < to && source.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && source.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            out.append(source, from, to);
+        }
+
+        private void newLine(int depth) {
+            out.append('\n');
+            for (int i = 0; i < depth; i++) {
+                out.append("  ");
+            }
+        }
+
+        // An object whose fields are being written: 'position' is where its next field starts
+        private static final class Level {
+            final int contentEnd;
+            final char closingBracket;
+            final int depth;
+            int position;
+            boolean done;
+            boolean commaAfterNested;
+
+            Level(int position, int contentEnd, char closingBracket, int depth) {
+                this.position = position;
+                this.contentEnd = contentEnd;
+                this.closingBracket = closingBracket;
+                this.depth = depth;
+            }
+        }
+    }
+}
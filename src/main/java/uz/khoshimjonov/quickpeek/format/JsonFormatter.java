@@ -0,0 +1,231 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+public class JsonFormatter implements Formatter {
+    private static final int INTERRUPT_CHECK_INTERVAL = 4096;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JsonFormatter() {
+        objectMapper.getFactory().setCodec(objectMapper);
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        objectMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    @Override
+    public ContentType contentType() {
+        return ContentType.JSON;
+    }
+
+    @Override
+    public boolean accepts(String content) {
+        return content.startsWith("{")
+                || (content.startsWith("[") && ContentSniffer.startsJsonValue(content, 1, content.length()))
+                || ((content.contains("{") || content.contains("}")) && content.contains(":"));
+    }
+
+    @Override
+    public String format(String content) {
+        return formatJson(content);
+    }
+
+    public String formatJson(String json) {
+        try {
+            return formatStreaming(json);
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            System.err.println("Could not format JSON: " + e.getMessage());
+            System.err.println("Trying to parse manually");
+            return formatJsonManually(json);
+        }
+    }
+
+    @Override
+    public String formatStrict(String content) {
+        try {
+            return formatStreaming(content);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Formatted with object members sorted by key, so two documents that differ only in member order come out
+    // the same; used for comparing documents. Floats are read as BigDecimal to keep their digits. Returns null
+    // when the content is not valid JSON.
+    public String formatCanonical(String json) {
+        try {
+            Object tree = objectMapper.readerFor(Object.class)
+                    .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                    .readValue(json);
+            String sorted = objectMapper.writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .with(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
+                    .writeValueAsString(tree);
+            return formatStreaming(sorted);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String formatStreaming(String json) throws Exception {
+        StringWriter writer = new StringWriter(json.length() + (json.length() >> 1));
+        try (JsonParser parser = objectMapper.getFactory().createParser(json);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            copyPretty(parser, generator);
+        }
+        return writer.toString();
+    }
+
+    // For content too large to hold as a String: neither the input nor the output is kept in memory
+    public void formatStreaming(Reader input, Writer output) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            copyPretty(parser, generator);
+        }
+    }
+
+    private static void copyPretty(JsonParser parser, JsonGenerator generator) throws IOException {
+        generator.useDefaultPrettyPrinter();
+
+        int tokens = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                // copyCurrentEvent goes through double, which turns 1.50 into 1.5 and drops digits past 17
+                generator.writeNumber(parser.getText());
+            } else {
+                generator.copyCurrentEvent(parser);
+            }
+            if (++tokens % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("JSON formatting cancelled");
+            }
+        }
+    }
+
+    public String formatJsonManually(String json) {
+        try {
+            json = json.trim();
+            if (json.isEmpty()) {
+                return null;
+            }
+
+            StringBuilder formatted = new StringBuilder();
+            int indentLevel = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            char prevChar = 0;
+
+            for (int i = 0; i < json.length(); i++) {
+                char currentChar = json.charAt(i);
+                char nextChar = i + 1 < json.length() ? json.charAt(i + 1) : 0;
+
+                if (currentChar == '"' && !escaped) {
+                    inString = !inString;
+                    formatted.append(currentChar);
+                    escaped = false;
+                    continue;
+                }
+
+                if (inString) {
+                    formatted.append(currentChar);
+                    escaped = (currentChar == '\\' && !escaped);
+                    continue;
+                }
+
+                escaped = false;
+
+                switch (currentChar) {
+                    case '{':
+                    case '[':
+                        formatted.append(currentChar);
+                        if (nextChar != '}' && nextChar != ']') {
+                            indentLevel++;
+                            appendNewlineWithIndent(formatted, indentLevel);
+                        }
+                        break;
+
+                    case '}':
+                    case ']':
+                        if (prevChar != '{' && prevChar != '[' && !Character.isWhitespace(prevChar)) {
+                            indentLevel = Math.max(0, indentLevel - 1);
+                            appendNewlineWithIndent(formatted, indentLevel);
+                        } else {
+                            indentLevel = Math.max(0, indentLevel - 1);
+                        }
+                        formatted.append(currentChar);
+                        break;
+
+                    case ',':
+                        formatted.append(currentChar);
+                        if (!isClosingBracketNext(json, i)) {
+                            appendNewlineWithIndent(formatted, indentLevel);
+                        }
+                        break;
+
+                    case ':':
+                        // whitespace after ':' is dropped below, so the separating space is always added here
+                        formatted.append(currentChar).append(' ');
+                        break;
+
+                    case ' ':
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                        if (!formatted.isEmpty() && formatted.charAt(formatted.length() - 1) != ' ') {
+                            char lastChar = formatted.charAt(formatted.length() - 1);
+                            if (lastChar != ':' && lastChar != ',' && lastChar != '{' && lastChar != '[') {
+                                formatted.append(' ');
+                            }
+                        }
+                        break;
+
+                    default:
+                        formatted.append(currentChar);
+                        break;
+                }
+
+                if (!Character.isWhitespace(currentChar)) {
+                    prevChar = currentChar;
+                }
+            }
+
+            return formatted.toString().trim();
+
+        } catch (Exception e) {
+            System.err.println("Manual JSON formatting also failed: " + e.getMessage());
+            return json;
+        }
+    }
+
+    private boolean isClosingBracketNext(String json, int currentIndex) {
+        for (int i = currentIndex + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '}' || c == ']') {
+                return true;
+            }
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void appendNewlineWithIndent(StringBuilder sb, int indentLevel) {
+        sb.append('\n');
+        sb.append("  ".repeat(Math.max(0, indentLevel)));
+    }
+}
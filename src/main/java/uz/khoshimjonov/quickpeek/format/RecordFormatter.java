@@ -0,0 +1,251 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Formats line-oriented content such as NDJSON or application logs, where each line may end with a JSON,
+// XML or Java object fragment after a prefix like a timestamp and logger name. Every line is formatted on
+// its own, so batches of lines can run in parallel and be shown as soon as they are done.
+public class RecordFormatter implements Formatter {
+    private static final int DETECTION_LINES = 64;
+    private static final int FIRST_BATCH_LINES = 64;
+    private static final int BATCH_LINES = 512;
+    private static final int MAX_ATTEMPTS_PER_LINE = 8;
+
+    private final JsonFormatter jsonFormatter;
+    private final XmlFormatter xmlFormatter;
+    private final JavaObjectFormatter javaObjectFormatter;
+
+    public RecordFormatter(JsonFormatter jsonFormatter, XmlFormatter xmlFormatter, JavaObjectFormatter javaObjectFormatter) {
+        this.jsonFormatter = jsonFormatter;
+        this.xmlFormatter = xmlFormatter;
+        this.javaObjectFormatter = javaObjectFormatter;
+    }
+
+    @Override
+    public ContentType contentType() {
+        return ContentType.LOG;
+    }
+
+    // At least two records, and records make up at least half of the non-blank lines at the start
+    @Override
+    public boolean accepts(String content) {
+        int lines = 0;
+        int records = 0;
+        int start = 0;
+        while (start < content.length() && lines < DETECTION_LINES) {
+            int end = lineEnd(content, start);
+            String line = content.substring(start, end).stripTrailing();
+            if (!line.isEmpty()) {
+                lines++;
+                if (isRecord(line)) {
+                    records++;
+                }
+            }
+            start = end + 1;
+        }
+        return records >= 2 && records * 2 >= lines;
+    }
+
+    @Override
+    public String format(String content) {
+        StringBuilder formatted = new StringBuilder(content.length() + (content.length() >> 1));
+        try {
+            formatIncrementally(content, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism(), formatted::append);
+            return formatted.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Formats batches of lines on the executor, keeping at most 'parallelism' of them in flight, and hands
+    // the results to 'chunks' in order. Concatenating the chunks gives the complete formatted text.
+    public void formatIncrementally(String content, ExecutorService executor, int parallelism,
+                                    Consumer<String> chunks) throws InterruptedException {
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        boolean first = true;
+        try {
+            int start = 0;
+            int batchLines = FIRST_BATCH_LINES;
+            while (start <= content.length()) {
+                int end = batchEnd(content, start, batchLines);
+                int from = start;
+                if (pending.size() >= Math.max(1, parallelism)) {
+                    chunks.accept(awaitChunk(pending.removeFirst(), first));
+                    first = false;
+                }
+                pending.addLast(executor.submit(() -> formatLines(content, from, end)));
+                start = end + 1;
+                batchLines = BATCH_LINES;
+            }
+            while (!pending.isEmpty()) {
+                chunks.accept(awaitChunk(pending.removeFirst(), first));
+                first = false;
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    // Same as formatIncrementally for content read from a stream, writing the result instead of keeping it
+    public void formatStreaming(BufferedReader input, Writer output, ExecutorService executor,
+                                int parallelism) throws IOException, InterruptedException {
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        boolean first = true;
+        try {
+            String batch;
+            while ((batch = readLines(input, BATCH_LINES)) != null) {
+                String lines = batch;
+                if (pending.size() >= Math.max(1, parallelism)) {
+                    output.write(awaitChunk(pending.removeFirst(), first));
+                    first = false;
+                }
+                pending.addLast(executor.submit(() -> formatLines(lines, 0, lines.length())));
+            }
+            while (!pending.isEmpty()) {
+                output.write(awaitChunk(pending.removeFirst(), first));
+                first = false;
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    // Up to 'count' lines joined by '\n', or null at the end of the input
+    private static String readLines(BufferedReader input, int count) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        String line;
+        int read = 0;
+        while (read < count && (line = input.readLine()) != null) {
+            if (read > 0) {
+                lines.append('\n');
+            }
+            lines.append(line);
+            read++;
+        }
+        return read == 0 ? null : lines.toString();
+    }
+
+    private String awaitChunk(Future<String> batch, boolean first) throws InterruptedException {
+        try {
+            String chunk = batch.get();
+            return first ? chunk : "\n" + chunk;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Record formatting failed", e.getCause());
+        }
+    }
+
+    private static int batchEnd(String content, int start, int lines) {
+        int end = start;
+        for (int i = 0; i < lines; i++) {
+            end = lineEnd(content, end);
+            if (end == content.length() || i == lines - 1) {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    private static int lineEnd(String content, int start) {
+        int end = content.indexOf('\n', start);
+        return end < 0 ? content.length() : end;
+    }
+
+    private String formatLines(String content, int from, int to) {
+        StringBuilder formatted = new StringBuilder((to - from) + ((to - from) >> 1));
+        int start = from;
+        while (start <= to) {
+            int end = Math.min(lineEnd(content, start), to);
+            if (start > from) {
+                formatted.append('\n');
+            }
+            formatted.append(formatLine(content.substring(start, end)));
+            start = end + 1;
+        }
+        return formatted.toString();
+    }
+
+    String formatLine(String line) {
+        if (!isRecordLine(line)) {
+            return line;
+        }
+        String trimmed = line.stripTrailing();
+        int candidate = -1;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS_PER_LINE; attempt++) {
+            candidate = nextCandidate(trimmed, candidate + 1);
+            if (candidate < 0) {
+                break;
+            }
+            String formatted = formatFragment(trimmed.substring(candidate));
+            if (formatted != null) {
+                return trimmed.substring(0, candidate) + formatted;
+            }
+        }
+        return line;
+    }
+
+    private String formatFragment(String fragment) {
+        char first = fragment.charAt(0);
+        String formatted;
+        if (first == '{' || first == '[') {
+            formatted = jsonFormatter.formatStrict(fragment);
+        } else if (first == '<') {
+            formatted = xmlFormatter.formatStrict(fragment);
+            if (formatted != null && formatted.startsWith("<?xml") && !fragment.startsWith("<?xml")) {
+                formatted = formatted.substring(formatted.indexOf("?>") + 2).stripLeading();
+            }
+        } else {
+            formatted = javaObjectFormatter.formatStrict(fragment);
+        }
+        return formatted != null ? formatted.stripTrailing() : null;
+    }
+
+    // Whether the non-blank, right-stripped line starts a record that carries a structured fragment
+    static boolean isRecord(String line) {
+        return isRecordLine(line) && nextCandidate(line, 0) >= 0;
+    }
+
+    // Continuation lines such as stack trace frames are indented; records start at the first column
+    private static boolean isRecordLine(String line) {
+        return !line.isEmpty() && !Character.isWhitespace(line.charAt(0));
+    }
+
+    // Start of the first fragment at or after 'from' that runs to the end of the line and could be a
+    // record, or -1. The fragment's first character tells its type.
+    private static int nextCandidate(String line, int from) {
+        int length = line.length();
+        char last = line.charAt(length - 1);
+        for (int i = from; i < length; i++) {
+            char c = line.charAt(i);
+            if ((c == '(' || c == '{') && i > from && JavaObjectFormatter.isIdentifierPart(line.charAt(i - 1))
+                    && (last == ')' || last == '}') && line.indexOf('=', i) >= 0) {
+                int start = i - 1;
+                while (start > from && JavaObjectFormatter.isIdentifierPart(line.charAt(start - 1))) {
+                    start--;
+                }
+                if ((start == 0 || !JavaObjectFormatter.isIdentifierPart(line.charAt(start - 1)))
+                        && JavaObjectFormatter.isIdentifierStart(line.charAt(start))) {
+                    return start;
+                }
+            }
+            if ((c == '{' && last == '}') || (c == '[' && last == ']')) {
+                return i;
+            }
+            if (c == '<' && i > 0 && last == '>' && i + 1 < length
+                    && (Character.isLetter(line.charAt(i + 1)) || line.charAt(i + 1) == '?')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,124 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+// Formats content too large to hold as a String, such as heap dumps or trace exports of hundreds of
+// megabytes, from file to file through the streaming entry points of the formatters. The type is detected
+// from a prefix. Java object dumps have no streaming formatter and are copied unchanged.
+public class StreamingFormatter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final JsonFormatter jsonFormatter;
+    private final XmlFormatter xmlFormatter;
+    private final RecordFormatter recordFormatter;
+
+    public StreamingFormatter() {
+        this(new JsonFormatter(), new XmlFormatter(), new JavaObjectFormatter());
+    }
+
+    private StreamingFormatter(JsonFormatter json, XmlFormatter xml, JavaObjectFormatter javaObject) {
+        this.jsonFormatter = json;
+        this.xmlFormatter = xml;
+        this.recordFormatter = new RecordFormatter(json, xml, javaObject);
+    }
+
+    public ContentType detect(Path input) throws IOException {
+        char[] prefix = new char[ContentSniffer.PREFIX_CHARS];
+        int filled = 0;
+        boolean complete = false;
+        try (Reader reader = newReader(input)) {
+            while (filled < prefix.length && !complete) {
+                int read = reader.read(prefix, filled, prefix.length - filled);
+                if (read < 0) {
+                    complete = true;
+                } else {
+                    filled += read;
+                }
+            }
+        }
+        CharBuffer head = CharBuffer.wrap(prefix, 0, filled);
+        ContentSniffer.Sniff sniff = complete ? ContentSniffer.sniff(head) : ContentSniffer.sniffPrefix(head);
+        // Java objects have no streaming formatter
+        ContentType contentType = sniff.kind().contentType();
+        return contentType == ContentType.JAVA_OBJECT ? ContentType.PLAIN : contentType;
+    }
+
+    // Writes the formatted content of 'input' to 'output' and returns its type. Content that is
+    // not recognised, or turns out to be malformed part way through, is copied unchanged as PLAIN.
+    public ContentType format(Path input, Path output, Charset outputCharset, ExecutorService executor,
+                              int parallelism) throws IOException, InterruptedException {
+        ContentType contentType = detect(input);
+        if (contentType != ContentType.PLAIN) {
+            try (BufferedReader reader = newReader(input);
+                 Writer writer = Files.newBufferedWriter(output, outputCharset)) {
+                switch (contentType) {
+                    case JSON -> jsonFormatter.formatStreaming(reader, writer);
+                    case XML -> xmlFormatter.formatStreaming(reader, writer);
+                    default -> recordFormatter.formatStreaming(reader, writer, executor, parallelism);
+                }
+                return contentType;
+            } catch (InterruptedIOException e) {
+                throw new InterruptedException(e.getMessage());
+            } catch (IOException e) {
+                System.err.println("Streaming " + contentType + " formatting failed, showing content as is: " + e.getMessage());
+            }
+        }
+        copy(input, output, outputCharset);
+        return ContentType.PLAIN;
+    }
+
+    // Decodes by the byte-order mark, as UTF-8 without one. Bytes that do not decode become U+FFFD, as with
+    // new String(bytes, UTF_8) for smaller content, so a Latin-1 file is still shown rather than failing.
+    private static BufferedReader newReader(Path input) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(input), BUFFER_SIZE);
+        try {
+            in.mark(3);
+            byte[] bom = in.readNBytes(3);
+            in.reset();
+            Charset charset = StandardCharsets.UTF_8;
+            if (bom.length >= 2 && ((bom[0] == (byte) 0xFE && bom[1] == (byte) 0xFF)
+                    || (bom[0] == (byte) 0xFF && bom[1] == (byte) 0xFE))) {
+                // the UTF-16 decoder reads the mark and drops it
+                charset = StandardCharsets.UTF_16;
+            } else if (bom.length == 3 && bom[0] == (byte) 0xEF && bom[1] == (byte) 0xBB && bom[2] == (byte) 0xBF) {
+                in.skipNBytes(3);
+            }
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            return new BufferedReader(new InputStreamReader(in, decoder), BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static void copy(Path input, Path output, Charset outputCharset) throws IOException, InterruptedException {
+        char[] buffer = new char[BUFFER_SIZE];
+        try (Reader reader = newReader(input);
+             Writer writer = Files.newBufferedWriter(output, outputCharset)) {
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                writer.write(buffer, 0, read);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Copy cancelled");
+                }
+            }
+        }
+    }
+}
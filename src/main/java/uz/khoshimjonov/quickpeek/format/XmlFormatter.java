@@ -0,0 +1,377 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class XmlFormatter implements Formatter {
+
+    @Override
+    public ContentType contentType() {
+        return ContentType.XML;
+    }
+
+    @Override
+    public boolean accepts(String content) {
+        return content.startsWith("<") || content.contains("/>") || content.contains("</");
+    }
+
+    @Override
+    public String format(String content) {
+        return formatXml(content);
+    }
+
+    public String formatXml(String xml) {
+        try {
+            return formatWithTransformer(xml);
+        } catch (Exception e) {
+            System.err.println("Could not format XML: " + e.getMessage());
+            System.err.println("Trying to parse manually");
+            return formatXmlManually(xml);
+        }
+    }
+
+    @Override
+    public String formatStrict(String content) {
+        try {
+            return formatWithTransformer(content);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Factories are configured once per process; builders and transformers are not thread-safe, so each
+    // thread keeps its own and resets it after use so that it does not hold on to the last document
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = newSecureDocumentBuilderFactory();
+    private static final TransformerFactory TRANSFORMER_FACTORY = newSecureTransformerFactory();
+    private static final XMLInputFactory STREAM_INPUT_FACTORY = newStreamInputFactory();
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS = new ThreadLocal<>();
+    private static final ThreadLocal<Transformer> TRANSFORMERS = new ThreadLocal<>();
+
+    private static DocumentBuilderFactory newSecureDocumentBuilderFactory() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+            return factory;
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("XML parser does not support secure processing", e);
+        }
+    }
+
+    private static TransformerFactory newSecureTransformerFactory() {
+        try {
+            TransformerFactory factory = TransformerFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+            return factory;
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("XML transformer does not support secure processing", e);
+        }
+    }
+
+    private static XMLInputFactory newStreamInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // prefixes and xmlns declarations then come through as plain names and attributes
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    // Parses with this thread's parser, which has DTDs and external entities disabled and reports errors only
+    // by throwing. The parser is reset before returning, so that it does not keep the document's state.
+    public static Document parseSecurely(String xml) throws ParserConfigurationException, SAXException, IOException {
+        DocumentBuilder builder = DOCUMENT_BUILDERS.get();
+        if (builder == null) {
+            // the factory itself is not guaranteed to be thread-safe
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                builder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDERS.set(builder);
+        }
+        // the default handler prints every parse error to stderr; failures are reported by the caller instead
+        builder.setErrorHandler(new DefaultHandler());
+        try {
+            return builder.parse(new InputSource(new StringReader(xml)));
+        } finally {
+            builder.reset();
+        }
+    }
+
+    private static Transformer indentingTransformer() throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMERS.get();
+        if (transformer == null) {
+            synchronized (TRANSFORMER_FACTORY) {
+                transformer = TRANSFORMER_FACTORY.newTransformer();
+            }
+            TRANSFORMERS.set(transformer);
+        }
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+        return transformer;
+    }
+
+    // Formatted with whitespace-only text dropped, so the same document indented differently comes out the
+    // same; used for comparing documents. The parser keeps attributes sorted by name. Returns null when the
+    // content is not well-formed XML.
+    public String formatCanonical(String xml) {
+        try {
+            Document doc = parseSecurely(xml);
+            removeWhitespaceText(doc.getDocumentElement());
+            Transformer transformer = indentingTransformer();
+            try (StringWriter writer = new StringWriter()) {
+                transformer.transform(new DOMSource(doc), new StreamResult(writer));
+                return writer.toString();
+            } finally {
+                transformer.reset();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Iterative, since deeply nested documents would overflow a recursive walk
+    private static void removeWhitespaceText(Node root) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            Node child = node.getFirstChild();
+            while (child != null) {
+                Node next = child.getNextSibling();
+                if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().isBlank()) {
+                    node.removeChild(child);
+                } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    pending.push(child);
+                }
+                child = next;
+            }
+        }
+    }
+
+    private String formatWithTransformer(String xml) throws Exception {
+        Document doc = parseSecurely(xml);
+
+        Transformer transformer = indentingTransformer();
+        try (StringWriter writer = new StringWriter()) {
+            transformer.transform(new DOMSource(doc), new StreamResult(writer));
+            return writer.toString();
+        } finally {
+            transformer.reset();
+        }
+    }
+
+    // For content too large for a DOM: re-indents the event stream as it is read, two spaces per level like
+    // the transformer. Elements holding only text stay on one line; whitespace-only text is dropped.
+    public void formatStreaming(Reader input, Writer output) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = STREAM_INPUT_FACTORY.createXMLStreamReader(input);
+            int depth = 0;
+            int events = 0;
+            boolean startTagOpen = false;
+            boolean hasChildren = false;
+            StringBuilder text = new StringBuilder();
+            boolean atStart = true;
+            if (reader.getVersion() != null) {
+                output.write("<?xml version=\"" + reader.getVersion() + "\" encoding=\"UTF-8\"?>");
+                atStart = false;
+            }
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (++events % 4096 == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("XML formatting cancelled");
+                }
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        if (startTagOpen) {
+                            output.write('>');
+                        }
+                        writeText(output, text, depth, false);
+                        if (!atStart) {
+                            newLine(output, depth);
+                        }
+                        atStart = false;
+                        output.write('<');
+                        output.write(reader.getLocalName());
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            output.write(' ');
+                            // without namespace awareness the prefix is not part of the local name, so xmlns:ns
+                            // would come out as ns
+                            String prefix = reader.getAttributePrefix(i);
+                            if (prefix != null && !prefix.isEmpty()) {
+                                output.write(prefix);
+                                output.write(':');
+                            }
+                            output.write(reader.getAttributeLocalName(i));
+                            output.write("=\"");
+                            escape(output, reader.getAttributeValue(i), true);
+                            output.write('"');
+                        }
+                        startTagOpen = true;
+                        hasChildren = false;
+                        depth++;
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        depth--;
+                        if (startTagOpen && text.isEmpty()) {
+                            output.write("/>");
+                        } else {
+                            if (startTagOpen) {
+                                output.write('>');
+                            }
+                            boolean inline = !hasChildren;
+                            writeText(output, text, depth + 1, inline);
+                            if (!inline) {
+                                newLine(output, depth);
+                            }
+                            output.write("</");
+                            output.write(reader.getLocalName());
+                            output.write('>');
+                        }
+                        text.setLength(0);
+                        startTagOpen = false;
+                        hasChildren = true;
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE -> text.append(reader.getText());
+                    case XMLStreamConstants.CDATA -> {
+                        if (startTagOpen) {
+                            output.write('>');
+                            startTagOpen = false;
+                        }
+                        writeText(output, text, depth, false);
+                        newLine(output, depth);
+                        output.write("<![CDATA[" + reader.getText() + "]]>");
+                        hasChildren = true;
+                    }
+                    case XMLStreamConstants.COMMENT, XMLStreamConstants.PROCESSING_INSTRUCTION -> {
+                        if (startTagOpen) {
+                            output.write('>');
+                            startTagOpen = false;
+                        }
+                        writeText(output, text, depth, false);
+                        if (!atStart) {
+                            newLine(output, depth);
+                        }
+                        atStart = false;
+                        output.write(event == XMLStreamConstants.COMMENT
+                                ? "<!--" + reader.getText() + "-->"
+                                : "<?" + reader.getPITarget() + (reader.getPIData().isEmpty() ? "" : " " + reader.getPIData()) + "?>");
+                        hasChildren = true;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            output.write('\n');
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+    }
+
+    // Writes pending text and clears it. The text of an element without children goes right after the start
+    // tag as it is, like formatXml keeps it; text between child nodes is trimmed and goes on its own line
+    private static void writeText(Writer output, StringBuilder text, int depth, boolean inline) throws IOException {
+        String value = inline ? text.toString() : text.toString().strip();
+        text.setLength(0);
+        if (value.isEmpty()) {
+            return;
+        }
+        if (!inline) {
+            newLine(output, depth);
+        }
+        escape(output, value, false);
+    }
+
+    private static void newLine(Writer output, int depth) throws IOException {
+        output.write('\n');
+        for (int i = 0; i < depth; i++) {
+            output.write("  ");
+        }
+    }
+
+    private static void escape(Writer output, String value, boolean attribute) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> output.write("&lt;");
+                case '>' -> output.write("&gt;");
+                case '&' -> output.write("&amp;");
+                case '"' -> output.write(attribute ? "&quot;" : "\"");
+                default -> output.write(c);
+            }
+        }
+    }
+
+    public String formatXmlManually(String xml) {
+        xml = xml.trim();
+        if (xml.isEmpty()) {
+            return null;
+        }
+        String[] tags = xml.split("(?<=>)");
+        if (tags.length == 0) {
+            return xml;
+        }
+        StringBuilder formattedXml = new StringBuilder();
+        int level = 0;
+        for (int i = 0; i < tags.length; i++) {
+            String tag = tags[i].trim();
+            String nextTag = i + 1 < tags.length ? tags[i + 1] : null;
+            boolean appendNextLine = nextTag != null && !nextTag.trim().startsWith("<");
+            String currentTag = appendNextLine ? tag + nextTag : tag;
+            if (currentTag.startsWith("</")) {
+                level--;
+            }
+            formattedXml.append("\n").append("    ".repeat(Math.abs(level))).append(tag);
+            if (appendNextLine) {
+                formattedXml.append(nextTag);
+                i++;
+            }
+            if (!currentTag.contains("</") && !currentTag.startsWith("<?") && !currentTag.endsWith("?>") && !currentTag.startsWith("!--")) {
+                level++;
+            }
+        }
+        return formattedXml.isEmpty() ? xml : formattedXml.toString().trim();
+    }
+}
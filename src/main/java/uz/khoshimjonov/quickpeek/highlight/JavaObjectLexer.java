@@ -0,0 +1,51 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+public class JavaObjectLexer implements Lexer {
+
+    @Override
+    public int tokenize(CharSequence line, int state, TokenCollector collector) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '"' || c == '\'') {
+                int end = LexerSupport.skipQuoted(line, i, c);
+                collector.add(i, end, TokenType.STRING);
+                i = end;
+            } else if (c == '-' || Character.isDigit(c)) {
+                int end = i + 1;
+                while (end < length && (Character.isDigit(line.charAt(end)) || line.charAt(end) == '.')) {
+                    end++;
+                }
+                collector.add(i, end, c == '-' && end == i + 1 ? TokenType.PUNCTUATION : TokenType.NUMBER);
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i;
+                while (end < length && (LexerSupport.isIdentifierPart(line.charAt(end)) || line.charAt(end) == '.')) {
+                    end++;
+                }
+                int next = LexerSupport.skipWhitespace(line, end);
+                char nextChar = next < length ? line.charAt(next) : 0;
+                if (nextChar == '(' || nextChar == '{') {
+                    collector.add(i, end, TokenType.TYPE);
+                } else if (nextChar == '=') {
+                    collector.add(i, end, TokenType.KEY);
+                } else if (LexerSupport.isLiteral(line, i, end)) {
+                    collector.add(i, end, TokenType.LITERAL);
+                }
+                i = end;
+            } else if ("(){}[],=".indexOf(c) >= 0) {
+                collector.add(i, i + 1, TokenType.PUNCTUATION);
+                i++;
+            } else {
+                i++;
+            }
+        }
+        return INITIAL_STATE;
+    }
+
+    @Override
+    public boolean isLineIndependent() {
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+public class JsonLexer implements Lexer {
+
+    @Override
+    public int tokenize(CharSequence line, int state, TokenCollector collector) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                int end = LexerSupport.skipQuoted(line, i, '"');
+                int next = LexerSupport.skipWhitespace(line, end);
+                boolean isKey = next < length && line.charAt(next) == ':';
+                collector.add(i, end, isKey ? TokenType.KEY : TokenType.STRING);
+                i = end;
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                int end = i + 1;
+                while (end < length && isNumberPart(line.charAt(end))) {
+                    end++;
+                }
+                collector.add(i, end, TokenType.NUMBER);
+                i = end;
+            } else if (Character.isLetter(c)) {
+                int end = LexerSupport.skipIdentifier(line, i);
+                if (LexerSupport.isLiteral(line, i, end)) {
+                    collector.add(i, end, TokenType.LITERAL);
+                }
+                i = end;
+            } else if (c == '{' || c == '}' || c == '[' || c == ']' || c == ',' || c == ':') {
+                collector.add(i, i + 1, TokenType.PUNCTUATION);
+                i++;
+            } else {
+                i++;
+            }
+        }
+        return INITIAL_STATE;
+    }
+
+    @Override
+    public boolean isLineIndependent() {
+        return true;
+    }
+
+    private static boolean isNumberPart(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-';
+    }
+}
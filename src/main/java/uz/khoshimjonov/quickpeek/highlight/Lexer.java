@@ -0,0 +1,13 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+public interface Lexer {
+    int INITIAL_STATE = 0;
+
+    // Returns the state the next line starts in
+    int tokenize(CharSequence line, int state, TokenCollector collector);
+
+    // True when every line starts in INITIAL_STATE, so a line can be lexed without looking back
+    default boolean isLineIndependent() {
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+final class LexerSupport {
+
+    private LexerSupport() {
+    }
+
+    // Returns the offset just past the closing quote, or the line length when the quote is unterminated
+    static int skipQuoted(CharSequence line, int start, char quote) {
+        int length = line.length();
+        boolean escaped = false;
+        for (int i = start + 1; i < length; i++) {
+            char c = line.charAt(i);
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == quote) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    static int skipWhitespace(CharSequence line, int start) {
+        int i = start;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    static int skipIdentifier(CharSequence line, int start) {
+        int i = start;
+        while (i < line.length() && isIdentifierPart(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    static boolean isLiteral(CharSequence line, int start, int end) {
+        return regionEquals(line, start, end, "true")
+                || regionEquals(line, start, end, "false")
+                || regionEquals(line, start, end, "null");
+    }
+
+    static boolean regionEquals(CharSequence line, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (line.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean startsWith(CharSequence line, int start, String prefix) {
+        return start + prefix.length() <= line.length() && regionEquals(line, start, start + prefix.length(), prefix);
+    }
+
+    static int indexOf(CharSequence line, String needle, int from) {
+        int last = line.length() - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (regionEquals(line, i, i + needle.length(), needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
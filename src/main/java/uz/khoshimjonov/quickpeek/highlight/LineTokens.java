@@ -0,0 +1,68 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+import java.util.Arrays;
+
+public final class LineTokens {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final int[] spans;
+    private final int count;
+    private final int stateIn;
+    private final int stateOut;
+
+    private LineTokens(int[] spans, int count, int stateIn, int stateOut) {
+        this.spans = spans;
+        this.count = count;
+        this.stateIn = stateIn;
+        this.stateOut = stateOut;
+    }
+
+    static LineTokens lex(Lexer lexer, CharSequence line, int stateIn) {
+        Collector collector = new Collector();
+        int stateOut = lexer.tokenize(line, stateIn, collector);
+        return new LineTokens(Arrays.copyOf(collector.spans, collector.size * 3), collector.size, stateIn, stateOut);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int start(int token) {
+        return spans[token * 3];
+    }
+
+    public int end(int token) {
+        return spans[token * 3 + 1];
+    }
+
+    public TokenType type(int token) {
+        return TYPES[spans[token * 3 + 2]];
+    }
+
+    int stateIn() {
+        return stateIn;
+    }
+
+    int stateOut() {
+        return stateOut;
+    }
+
+    private static final class Collector implements TokenCollector {
+        private int[] spans = new int[48];
+        private int size;
+
+        @Override
+        public void add(int start, int end, TokenType type) {
+            if (end <= start) {
+                return;
+            }
+            if ((size + 1) * 3 > spans.length) {
+                spans = Arrays.copyOf(spans, spans.length * 2);
+            }
+            spans[size * 3] = start;
+            spans[size * 3 + 1] = end;
+            spans[size * 3 + 2] = type.ordinal();
+            size++;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+public class SyntaxHighlighter {
+    private static final int MAX_CACHED_LINES = 4096;
+    private static final int MAX_LOOKBACK_LINES = 256;
+
+    private final Lexer lexer;
+    private final IntFunction<? extends CharSequence> lineSupplier;
+    private Map<Integer, LineTokens> cache = newCache();
+
+    public SyntaxHighlighter(Lexer lexer, IntFunction<? extends CharSequence> lineSupplier) {
+        this.lexer = lexer;
+        this.lineSupplier = lineSupplier;
+    }
+
+    public static Lexer lexerFor(ContentType contentType) {
+        return switch (contentType) {
+            case JSON, LOG -> new JsonLexer();
+            case XML -> new XmlLexer();
+            case JAVA_OBJECT -> new JavaObjectLexer();
+            default -> null;
+        };
+    }
+
+    public LineTokens tokens(int line, CharSequence text) {
+        int stateIn = stateBefore(line);
+        LineTokens cached = cache.get(line);
+        if (cached != null && cached.stateIn() == stateIn) {
+            return cached;
+        }
+        LineTokens tokens = LineTokens.lex(lexer, text, stateIn);
+        cache.put(line, tokens);
+        return tokens;
+    }
+
+    // Keeps cached lines outside the edited range, shifting those below it
+    public void linesReplaced(int from, int removed, int added) {
+        LineTokens lastRemoved = removed > 0 ? cache.get(from + removed - 1) : null;
+        int shift = added - removed;
+
+        Map<Integer, LineTokens> shifted = newCache();
+        for (Map.Entry<Integer, LineTokens> entry : cache.entrySet()) {
+            int line = entry.getKey();
+            if (line < from) {
+                shifted.put(line, entry.getValue());
+            } else if (line >= from + removed) {
+                shifted.put(line + shift, entry.getValue());
+            }
+        }
+        cache = shifted;
+
+        if (lexer.isLineIndependent()) {
+            return;
+        }
+
+        int state = stateBefore(from);
+        for (int line = from; line < from + added; line++) {
+            LineTokens tokens = LineTokens.lex(lexer, lineSupplier.apply(line), state);
+            cache.put(line, tokens);
+            state = tokens.stateOut();
+        }
+        if (lastRemoved == null || lastRemoved.stateOut() != state) {
+            int firstStale = from + added;
+            cache.keySet().removeIf(line -> line >= firstStale);
+        }
+    }
+
+    private int stateBefore(int line) {
+        if (line == 0 || lexer.isLineIndependent()) {
+            return Lexer.INITIAL_STATE;
+        }
+
+        int limit = Math.max(0, line - MAX_LOOKBACK_LINES);
+        int known = line - 1;
+        while (known >= limit && !cache.containsKey(known)) {
+            known--;
+        }
+
+        int state;
+        int next;
+        if (known >= limit) {
+            state = cache.get(known).stateOut();
+            next = known + 1;
+        } else {
+            // Nothing cached nearby: resynchronise from the initial state a bounded distance back
+            state = Lexer.INITIAL_STATE;
+            next = limit;
+        }
+
+        for (; next < line; next++) {
+            LineTokens tokens = LineTokens.lex(lexer, lineSupplier.apply(next), state);
+            cache.put(next, tokens);
+            state = tokens.stateOut();
+        }
+        return state;
+    }
+
+    private static Map<Integer, LineTokens> newCache() {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, LineTokens> eldest) {
+                return size() > MAX_CACHED_LINES;
+            }
+        };
+    }
+}
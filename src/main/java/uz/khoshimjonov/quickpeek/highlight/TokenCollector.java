@@ -0,0 +1,5 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+public interface TokenCollector {
+    void add(int start, int end, TokenType type);
+}
@@ -0,0 +1,25 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+import javafx.scene.paint.Color;
+
+public enum TokenType {
+    KEY("#9cdcfe"),
+    STRING("#ce9178"),
+    NUMBER("#b5cea8"),
+    LITERAL("#569cd6"),
+    PUNCTUATION("#d4d4d4"),
+    TAG("#569cd6"),
+    ATTRIBUTE("#9cdcfe"),
+    COMMENT("#6a9955"),
+    TYPE("#4ec9b0");
+
+    private final Color color;
+
+    TokenType(String color) {
+        this.color = Color.web(color);
+    }
+
+    public Color color() {
+        return color;
+    }
+}
@@ -0,0 +1,92 @@
+package uz.khoshimjonov.quickpeek.highlight;
+
+public class XmlLexer implements Lexer {
+    private static final int IN_COMMENT = 1;
+    private static final int IN_CDATA = 2;
+    private static final int IN_TAG = 3;
+
+    @Override
+    public int tokenize(CharSequence line, int state, TokenCollector collector) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (state == IN_COMMENT) {
+                int close = LexerSupport.indexOf(line, "-->", i);
+                int end = close < 0 ? length : close + 3;
+                collector.add(i, end, TokenType.COMMENT);
+                state = close < 0 ? IN_COMMENT : INITIAL_STATE;
+                i = end;
+            } else if (state == IN_CDATA) {
+                int close = LexerSupport.indexOf(line, "]]>", i);
+                int end = close < 0 ? length : close + 3;
+                collector.add(i, end, TokenType.STRING);
+                state = close < 0 ? IN_CDATA : INITIAL_STATE;
+                i = end;
+            } else if (state == IN_TAG) {
+                char c = line.charAt(i);
+                if (c == '>') {
+                    collector.add(i, i + 1, TokenType.TAG);
+                    state = INITIAL_STATE;
+                    i++;
+                } else if ((c == '/' || c == '?') && i + 1 < length && line.charAt(i + 1) == '>') {
+                    collector.add(i, i + 2, TokenType.TAG);
+                    state = INITIAL_STATE;
+                    i += 2;
+                } else if (c == '"' || c == '\'') {
+                    int end = LexerSupport.skipQuoted(line, i, c);
+                    collector.add(i, end, TokenType.STRING);
+                    i = end;
+                } else if (c == '=') {
+                    collector.add(i, i + 1, TokenType.PUNCTUATION);
+                    i++;
+                } else if (Character.isWhitespace(c)) {
+                    i++;
+                } else {
+                    int end = skipName(line, i);
+                    collector.add(i, end, TokenType.ATTRIBUTE);
+                    i = end;
+                }
+            } else if (LexerSupport.startsWith(line, i, "<!--")) {
+                state = IN_COMMENT;
+            } else if (LexerSupport.startsWith(line, i, "<![CDATA[")) {
+                collector.add(i, i + 9, TokenType.TAG);
+                state = IN_CDATA;
+                i += 9;
+            } else if (line.charAt(i) == '<') {
+                int nameStart = i + 1;
+                if (nameStart < length && "/?!".indexOf(line.charAt(nameStart)) >= 0) {
+                    nameStart++;
+                }
+                int end = skipName(line, nameStart);
+                collector.add(i, end, TokenType.TAG);
+                state = IN_TAG;
+                i = end;
+            } else if (line.charAt(i) == '&') {
+                int end = i + 1;
+                while (end < length && line.charAt(end) != ';' && !Character.isWhitespace(line.charAt(end)) && line.charAt(end) != '<') {
+                    end++;
+                }
+                if (end < length && line.charAt(end) == ';') {
+                    end++;
+                }
+                collector.add(i, end, TokenType.LITERAL);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return state;
+    }
+
+    private static int skipName(CharSequence line, int start) {
+        int i = start;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c) || c == '>' || c == '/' || c == '=' || c == '?' || c == '"' || c == '\'') {
+                break;
+            }
+            i++;
+        }
+        return i == start ? Math.min(start + 1, line.length()) : i;
+    }
+}
@@ -0,0 +1,23 @@
+package uz.khoshimjonov.quickpeek.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Recorded only while a flight recording is running, e.g. started with -XX:StartFlightRecording
+@Name("uz.khoshimjonov.quickpeek.Latency")
+@Label("QuickPeek Latency")
+@Category("QuickPeek")
+@Description("Time spent in one step of showing clipboard content")
+@StackTrace(false)
+class LatencyEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Characters")
+    @Description("Size of the content the step worked on, or -1 when not applicable")
+    long characters = -1;
+}
@@ -0,0 +1,25 @@
+package uz.khoshimjonov.quickpeek.metrics;
+
+// Steps between the hotkey press and the formatted content being on screen. HOTKEY_TO_PAINT spans all
+// of them; the others are measured on their own so a slow clipboard can be told apart from a slow formatter.
+public enum LatencyStage {
+    HOTKEY_TO_PAINT("hotkey to paint"),
+    CLIPBOARD_READ("clipboard read"),
+    CACHE_LOOKUP("cache lookup"),
+    DETECT("detect"),
+    FORMAT("format"),
+    LINE_INDEX("line index"),
+    SET_DOCUMENT("set document"),
+    RESIZE("resize"),
+    LAYOUT("layout");
+
+    private final String label;
+
+    LatencyStage(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,85 @@
+package uz.khoshimjonov.quickpeek.metrics;
+
+import java.util.Arrays;
+
+// Keeps the most recent samples of every stage in fixed rings, so memory stays constant however long the
+// application runs, and computes percentiles over them on request
+public final class LatencyStats {
+    private static final int WINDOW = 512;
+
+    private final long[][] samples = new long[LatencyStage.values().length][WINDOW];
+    private final long[] counts = new long[LatencyStage.values().length];
+
+    public LatencyTimer start(LatencyStage stage) {
+        return new LatencyTimer(this, stage);
+    }
+
+    synchronized void record(LatencyStage stage, long nanos) {
+        int index = stage.ordinal();
+        samples[index][(int) (counts[index] % WINDOW)] = nanos;
+        counts[index]++;
+    }
+
+    public synchronized long count(LatencyStage stage) {
+        return counts[stage.ordinal()];
+    }
+
+    // Nanoseconds, or -1 when the stage has no samples yet
+    public synchronized long last(LatencyStage stage) {
+        int index = stage.ordinal();
+        return counts[index] == 0 ? -1 : samples[index][(int) ((counts[index] - 1) % WINDOW)];
+    }
+
+    // Nearest-rank percentile over the retained samples in nanoseconds, or -1 without samples
+    public synchronized long percentile(LatencyStage stage, double percentile) {
+        long[] sorted = retained(stage);
+        if (sorted.length == 0) {
+            return -1;
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private long[] retained(LatencyStage stage) {
+        int index = stage.ordinal();
+        return Arrays.copyOf(samples[index], (int) Math.min(counts[index], WINDOW));
+    }
+
+    // The latest value of every stage that has one, e.g. "hotkey to paint 41.2 ms (clipboard read 0.8, ...)"
+    public synchronized String lastBreakdown() {
+        StringBuilder breakdown = new StringBuilder();
+        breakdown.append(LatencyStage.HOTKEY_TO_PAINT.label()).append(' ')
+                .append(millis(last(LatencyStage.HOTKEY_TO_PAINT))).append(" ms (");
+        String separator = "";
+        for (LatencyStage stage : LatencyStage.values()) {
+            if (stage != LatencyStage.HOTKEY_TO_PAINT && counts[stage.ordinal()] > 0) {
+                breakdown.append(separator).append(stage.label()).append(' ').append(millis(last(stage)));
+                separator = ", ";
+            }
+        }
+        return breakdown.append(')').toString();
+    }
+
+    // Table of count, p50, p90, p99 and max per stage, in milliseconds
+    public synchronized String report() {
+        StringBuilder report = new StringBuilder(String.format("%-16s %7s %9s %9s %9s %9s%n",
+                "stage", "count", "p50", "p90", "p99", "max"));
+        for (LatencyStage stage : LatencyStage.values()) {
+            long count = counts[stage.ordinal()];
+            if (count == 0) {
+                report.append(String.format("%-16s %7d %9s %9s %9s %9s%n", stage.label(), 0, "-", "-", "-", "-"));
+                continue;
+            }
+            report.append(String.format("%-16s %7d %9s %9s %9s %9s%n", stage.label(), count,
+                    millis(percentile(stage, 50)), millis(percentile(stage, 90)),
+                    millis(percentile(stage, 99)), millis(percentile(stage, 100))));
+        }
+        report.append("Percentiles cover the last ").append(WINDOW).append(" samples of each stage, times in ms");
+        return report.toString();
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format("%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,39 @@
+package uz.khoshimjonov.quickpeek.metrics;
+
+// One running measurement. May be stopped on a different thread than the one that started it, e.g. the
+// hotkey-to-paint span starts on the native hook thread and ends on the FX thread.
+public final class LatencyTimer {
+    private final LatencyStats stats;
+    private final LatencyStage stage;
+    private final LatencyEvent event = new LatencyEvent();
+    private final long start;
+    private boolean stopped;
+
+    LatencyTimer(LatencyStats stats, LatencyStage stage) {
+        this.stats = stats;
+        this.stage = stage;
+        event.begin();
+        this.start = System.nanoTime();
+    }
+
+    public long stop() {
+        return stop(-1);
+    }
+
+    // Records the elapsed time once; later calls return -1 and record nothing
+    public synchronized long stop(long characters) {
+        if (stopped) {
+            return -1;
+        }
+        stopped = true;
+        long elapsed = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage.label();
+            event.characters = characters;
+            event.commit();
+        }
+        stats.record(stage, elapsed);
+        return elapsed;
+    }
+}
@@ -0,0 +1,40 @@
+package uz.khoshimjonov.quickpeek.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Heap and resident set size of this process. The resident size is what the OS charges for the tray process,
+// heap included; it is read from /proc and unknown on systems without it.
+public final class MemoryUsage {
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    private static final long MB = 1024 * 1024;
+
+    private MemoryUsage() {
+    }
+
+    // Resident set size in bytes, or -1 where it cannot be read
+    public static long residentBytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    // "VmRSS:    123456 kB"
+                    String[] fields = line.trim().split("\\s+");
+                    return Long.parseLong(fields[1]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Linux, or a format we do not know
+        }
+        return -1;
+    }
+
+    public static String report() {
+        Runtime runtime = Runtime.getRuntime();
+        long committed = runtime.totalMemory();
+        long used = committed - runtime.freeMemory();
+        long resident = residentBytes();
+        return String.format("heap %d MB used / %d MB committed, RSS %s",
+                used / MB, committed / MB, resident < 0 ? "n/a" : resident / MB + " MB");
+    }
+}
@@ -0,0 +1,62 @@
+package uz.khoshimjonov.quickpeek.outline;
+
+import java.util.Arrays;
+
+// Source offsets of the direct children of one node, kept as parallel int arrays so that scanning a
+// container with a million entries does not create a million objects
+final class ChildTable {
+    private int[] nameStarts = new int[16];
+    private int[] nameEnds = new int[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] childCounts = new int[16];
+    private int[] kinds = new int[16];
+    private int size;
+
+    void add(int nameStart, int nameEnd, int start, int end, int childCount, int kind) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            nameStarts = Arrays.copyOf(nameStarts, capacity);
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+        nameStarts[size] = nameStart;
+        nameEnds[size] = nameEnd;
+        starts[size] = start;
+        ends[size] = end;
+        childCounts[size] = childCount;
+        kinds[size] = kind;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int nameStart(int index) {
+        return nameStarts[index];
+    }
+
+    int nameEnd(int index) {
+        return nameEnds[index];
+    }
+
+    int start(int index) {
+        return starts[index];
+    }
+
+    int end(int index) {
+        return ends[index];
+    }
+
+    int childCount(int index) {
+        return childCounts[index];
+    }
+
+    int kind(int index) {
+        return kinds[index];
+    }
+}
@@ -0,0 +1,130 @@
+package uz.khoshimjonov.quickpeek.outline;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+// Children are found by running the streaming parser from the node's offset and skipping over each child
+// container, so expanding a node touches only that node's part of the source and builds no tree
+public final class JsonOutline extends Outline {
+    private static final int SCALAR = 0;
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public JsonOutline(String source) {
+        super(source);
+    }
+
+    // The root's size is only learned when it is expanded, so opening a large document costs one pass
+    @Override
+    public OutlineNode root() {
+        try (JsonParser parser = parserAt(0)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return new OutlineNode("(empty)", 0, 0, 0);
+            }
+            int start = (int) parser.getTokenLocation().getCharOffset();
+            if (token == JsonToken.START_OBJECT) {
+                return new OutlineNode("{…}", start, source.length(), UNKNOWN_CHILD_COUNT);
+            } else if (token == JsonToken.START_ARRAY) {
+                return new OutlineNode("[…]", start, source.length(), UNKNOWN_CHILD_COUNT);
+            }
+            parser.finishToken();
+            return new OutlineNode(excerpt(start, source.length()), start, source.length(), 0);
+        } catch (Exception e) {
+            return new OutlineNode("⚠ " + e.getMessage(), 0, source.length(), 0);
+        }
+    }
+
+    @Override
+    void scanChildren(OutlineNode node, ChildTable table) throws IOException {
+        int base = node.getStart();
+        try (JsonParser parser = parserAt(base)) {
+            parser.nextToken();
+            while (true) {
+                JsonToken token = parser.nextToken();
+                if (token == null || token.isStructEnd()) {
+                    return;
+                }
+                int nameStart = -1;
+                int nameEnd = -1;
+                if (token == JsonToken.FIELD_NAME) {
+                    nameStart = base + (int) parser.getTokenLocation().getCharOffset();
+                    nameEnd = stringEnd(nameStart);
+                    token = parser.nextToken();
+                }
+                int start = base + (int) parser.getTokenLocation().getCharOffset();
+                if (token.isStructStart()) {
+                    int count = skipContainer(parser);
+                    int end = base + (int) parser.getCurrentLocation().getCharOffset();
+                    table.add(nameStart, nameEnd, start, end, count, token == JsonToken.START_OBJECT ? OBJECT : ARRAY);
+                } else {
+                    parser.finishToken();
+                    int end = base + (int) parser.getCurrentLocation().getCharOffset();
+                    table.add(nameStart, nameEnd, start, end, 0, SCALAR);
+                }
+            }
+        }
+    }
+
+    @Override
+    String label(ChildTable table, int index) {
+        String name = table.nameStart(index) >= 0
+                ? excerpt(table.nameStart(index) + 1, table.nameEnd(index) - 1)
+                : "[" + index + "]";
+        int count = table.childCount(index);
+        String value = switch (table.kind(index)) {
+            case OBJECT -> count == 0 ? "{}" : "{…} " + count + (count == 1 ? " key" : " keys");
+            case ARRAY -> count == 0 ? "[]" : "[…] " + count + (count == 1 ? " item" : " items");
+            default -> excerpt(table.start(index), table.end(index));
+        };
+        return name + ": " + value;
+    }
+
+    private JsonParser parserAt(int offset) throws IOException {
+        StringReader reader = new StringReader(source);
+        reader.skip(offset);
+        return FACTORY.createParser(reader);
+    }
+
+    // Consumes the rest of a container whose start token was just read and returns its direct child count
+    private static int skipContainer(JsonParser parser) throws IOException {
+        int depth = 1;
+        int count = 0;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input");
+            }
+            if (token.isStructEnd()) {
+                depth--;
+                continue;
+            }
+            if (depth == 1 && token != JsonToken.FIELD_NAME) {
+                count++;
+            }
+            if (token.isStructStart()) {
+                depth++;
+            }
+        }
+        return count;
+    }
+
+    // Position just past the closing quote of the string starting at 'start'
+    private int stringEnd(int start) {
+        boolean escaped = false;
+        for (int i = start + 1; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '"' && !escaped) {
+                return i + 1;
+            }
+            escaped = c == '\\' && !escaped;
+        }
+        return source.length();
+    }
+}
@@ -0,0 +1,101 @@
+package uz.khoshimjonov.quickpeek.outline;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lazily expanded structure of a JSON or XML source. Only the root is scanned up front; the children of a
+// node are located when it is expanded, so memory grows with what is open rather than with the document.
+public abstract sealed class Outline permits JsonOutline, XmlOutline {
+    static final int PAGE_SIZE = 1000;
+    // Nodes whose children have not been counted yet; they are expanded like any other inner node
+    static final int UNKNOWN_CHILD_COUNT = -1;
+    private static final int MAX_LABEL_LENGTH = 200;
+
+    protected final String source;
+
+    Outline(String source) {
+        this.source = source;
+    }
+
+    // Returns null for content types that have no outline
+    public static Outline of(String source, ContentType contentType) {
+        return switch (contentType) {
+            case JSON -> new JsonOutline(source);
+            case XML -> new XmlOutline(source);
+            default -> null;
+        };
+    }
+
+    public static boolean supports(ContentType contentType) {
+        return contentType == ContentType.JSON || contentType == ContentType.XML;
+    }
+
+    public abstract OutlineNode root();
+
+    public List<OutlineNode> children(OutlineNode node) {
+        if (node.isLeaf()) {
+            return List.of();
+        }
+        if (node.getGroup() != null) {
+            return materialize(node.getGroup(), node.getGroupFrom(), node.getGroupFrom() + node.getChildCount());
+        }
+
+        ChildTable table = new ChildTable();
+        String error = null;
+        try {
+            scanChildren(node, table);
+        } catch (Exception e) {
+            error = String.valueOf(e.getMessage()).lines().findFirst().orElse("invalid content");
+        }
+
+        List<OutlineNode> children;
+        if (table.size() <= PAGE_SIZE) {
+            children = materialize(table, 0, table.size());
+        } else {
+            // Very large containers are split into pages that are materialised one at a time
+            children = new ArrayList<>();
+            for (int from = 0; from < table.size(); from += PAGE_SIZE) {
+                int to = Math.min(table.size(), from + PAGE_SIZE);
+                children.add(new OutlineNode("[" + from + " … " + (to - 1) + "]",
+                        table.start(from), table.end(to - 1), to - from, table, from));
+            }
+        }
+        if (error != null) {
+            children.add(new OutlineNode("⚠ " + error, node.getEnd(), node.getEnd(), 0));
+        }
+        return children;
+    }
+
+    private List<OutlineNode> materialize(ChildTable table, int from, int to) {
+        List<OutlineNode> nodes = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            nodes.add(new OutlineNode(label(table, i), table.start(i), table.end(i), table.childCount(i)));
+        }
+        return nodes;
+    }
+
+    // Records the direct children of node in table; may throw after recording some of them
+    abstract void scanChildren(OutlineNode node, ChildTable table) throws Exception;
+
+    abstract String label(ChildTable table, int index);
+
+    // Source excerpt on a single line, shortened for display
+    protected String excerpt(int start, int end) {
+        StringBuilder excerpt = new StringBuilder(Math.min(end - start, MAX_LABEL_LENGTH + 1));
+        boolean lastWasSpace = false;
+        for (int i = start; i < end && excerpt.length() < MAX_LABEL_LENGTH; i++) {
+            char c = source.charAt(i);
+            boolean space = Character.isWhitespace(c);
+            if (!space || !lastWasSpace) {
+                excerpt.append(space ? ' ' : c);
+            }
+            lastWasSpace = space;
+        }
+        if (excerpt.length() >= MAX_LABEL_LENGTH) {
+            excerpt.append('…');
+        }
+        return excerpt.toString().trim();
+    }
+}
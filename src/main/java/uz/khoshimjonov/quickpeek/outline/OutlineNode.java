@@ -0,0 +1,59 @@
+package uz.khoshimjonov.quickpeek.outline;
+
+// One node of a document outline. Nodes only hold source offsets and a display label; their children are
+// found by re-scanning [start, end) when first needed.
+public final class OutlineNode {
+    private final String label;
+    private final int start;
+    private final int end;
+    private final int childCount;
+    private final ChildTable group;
+    private final int groupFrom;
+
+    OutlineNode(String label, int start, int end, int childCount) {
+        this(label, start, end, childCount, null, 0);
+    }
+
+    OutlineNode(String label, int start, int end, int childCount, ChildTable group, int groupFrom) {
+        this.label = label;
+        this.start = start;
+        this.end = end;
+        this.childCount = childCount;
+        this.group = group;
+        this.groupFrom = groupFrom;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int getChildCount() {
+        return childCount;
+    }
+
+    public boolean isLeaf() {
+        return childCount == 0;
+    }
+
+    // Non-null for the synthetic nodes that page through a very large object, array or element
+    ChildTable getGroup() {
+        return group;
+    }
+
+    int getGroupFrom() {
+        return groupFrom;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,178 @@
+package uz.khoshimjonov.quickpeek.outline;
+
+// Scans the raw markup instead of building a DOM: expanding an element walks its content once, jumping
+// over each child element by counting start and end tags
+public final class XmlOutline extends Outline {
+    private static final int ELEMENT = 0;
+    private static final int TEXT = 1;
+    private static final int OTHER = 2;
+
+    public XmlOutline(String source) {
+        super(source);
+    }
+
+    @Override
+    public OutlineNode root() {
+        int i = 0;
+        while (i < source.length()) {
+            int lt = source.indexOf('<', i);
+            if (lt < 0) {
+                break;
+            }
+            if (source.startsWith("<?", lt)) {
+                i = after("?>", lt);
+            } else if (source.startsWith("<!--", lt)) {
+                i = after("-->", lt);
+            } else if (source.startsWith("<!", lt)) {
+                i = after(">", lt);
+            } else {
+                int tagEnd = startTagEnd(lt);
+                boolean empty = isSelfClosing(tagEnd);
+                return new OutlineNode(excerpt(lt, tagEnd), lt, source.length(), empty ? 0 : UNKNOWN_CHILD_COUNT);
+            }
+        }
+        return new OutlineNode("(no root element)", 0, 0, 0);
+    }
+
+    @Override
+    void scanChildren(OutlineNode node, ChildTable table) {
+        int end = node.getEnd();
+        int i = startTagEnd(node.getStart());
+        while (i < end) {
+            int lt = source.indexOf('<', i);
+            if (lt < 0 || lt > end) {
+                lt = end;
+            }
+            addText(table, i, lt);
+            if (lt >= end || source.startsWith("</", lt)) {
+                return;
+            }
+
+            if (source.startsWith("<!--", lt)) {
+                i = after("-->", lt);
+                table.add(-1, -1, lt, i, 0, OTHER);
+            } else if (source.startsWith("<![CDATA[", lt)) {
+                i = after("]]>", lt);
+                table.add(-1, -1, lt, i, 0, TEXT);
+            } else if (source.startsWith("<?", lt)) {
+                i = after("?>", lt);
+                table.add(-1, -1, lt, i, 0, OTHER);
+            } else if (source.startsWith("<!", lt)) {
+                i = after(">", lt);
+            } else {
+                i = addElement(table, lt);
+            }
+        }
+    }
+
+    private void addText(ChildTable table, int from, int to) {
+        while (from < to && Character.isWhitespace(source.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(source.charAt(to - 1))) {
+            to--;
+        }
+        if (from < to) {
+            table.add(-1, -1, from, to, 0, TEXT);
+        }
+    }
+
+    // Records the element starting at 'start' and returns the position after its end tag. Elements holding
+    // nothing but text become leaves whose label shows the text.
+    private int addElement(ChildTable table, int start) {
+        int i = startTagEnd(start);
+        if (isSelfClosing(i)) {
+            table.add(-1, -1, start, i, 0, ELEMENT);
+            return i;
+        }
+
+        int depth = 1;
+        int children = 0;
+        int elements = 0;
+        while (i < source.length()) {
+            int lt = source.indexOf('<', i);
+            if (lt < 0) {
+                i = source.length();
+                break;
+            }
+            if (depth == 1 && !isBlank(i, lt)) {
+                children++;
+            }
+            if (source.startsWith("<!--", lt)) {
+                children += depth == 1 ? 1 : 0;
+                i = after("-->", lt);
+            } else if (source.startsWith("<![CDATA[", lt)) {
+                children += depth == 1 ? 1 : 0;
+                i = after("]]>", lt);
+            } else if (source.startsWith("<?", lt)) {
+                children += depth == 1 ? 1 : 0;
+                i = after("?>", lt);
+            } else if (source.startsWith("</", lt)) {
+                i = after(">", lt);
+                if (--depth == 0) {
+                    break;
+                }
+            } else if (source.startsWith("<!", lt)) {
+                i = after(">", lt);
+            } else {
+                if (depth == 1) {
+                    children++;
+                    elements++;
+                }
+                i = startTagEnd(lt);
+                if (!isSelfClosing(i)) {
+                    depth++;
+                }
+            }
+        }
+
+        boolean textOnly = elements == 0 && children <= 1;
+        table.add(-1, -1, start, i, textOnly ? 0 : children, ELEMENT);
+        return i;
+    }
+
+    @Override
+    String label(ChildTable table, int index) {
+        int start = table.start(index);
+        if (table.kind(index) == ELEMENT && table.childCount(index) > 0) {
+            return excerpt(start, startTagEnd(start));
+        }
+        return excerpt(start, table.end(index));
+    }
+
+    // Position just past the '>' closing the tag at 'lt', ignoring '>' inside quoted attribute values
+    private int startTagEnd(int lt) {
+        char quote = 0;
+        for (int i = lt + 1; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return source.length();
+    }
+
+    private boolean isSelfClosing(int tagEnd) {
+        return tagEnd >= 2 && source.charAt(tagEnd - 1) == '>' && source.charAt(tagEnd - 2) == '/';
+    }
+
+    private int after(String token, int from) {
+        int index = source.indexOf(token, from);
+        return index < 0 ? source.length() : index + token.length();
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
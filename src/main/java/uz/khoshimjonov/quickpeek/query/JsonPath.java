@@ -0,0 +1,289 @@
+package uz.khoshimjonov.quickpeek.query;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A JSONPath subset evaluated in a single pass of the streaming parser, so no tree is built:
+// $, .name, ['name'], [n], [a,b], [from:to], [*], .* and the recursive forms ..name, ..[n] and ..*
+//
+// While reading, every value carries the set of steps matched so far as a bitset. A value matching all
+// steps is a hit; containers whose set cannot lead to a hit are skipped without looking at their content.
+final class JsonPath {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int MAX_STEPS = 63;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 14;
+
+    private final Step[] steps;
+    private final long accepting;
+    private final long live;
+
+    private JsonPath(Step[] steps) {
+        this.steps = steps;
+        this.accepting = 1L << steps.length;
+        this.live = accepting - 1;
+    }
+
+    // Throws IllegalArgumentException when the expression is not in the supported subset
+    static JsonPath parse(String expression) {
+        String path = expression.strip();
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("JSONPath must start with $");
+        }
+        List<Step> steps = new ArrayList<>();
+        int i = 1;
+        while (i < path.length()) {
+            boolean recursive = false;
+            if (path.startsWith("..", i)) {
+                recursive = true;
+                i += 2;
+            } else if (path.charAt(i) == '.') {
+                i++;
+            } else if (path.charAt(i) != '[') {
+                throw new IllegalArgumentException("Unexpected '" + path.charAt(i) + "' at " + i);
+            }
+
+            if (i < path.length() && path.charAt(i) == '[') {
+                int close = bracketEnd(path, i);
+                steps.add(parseBracket(path.substring(i + 1, close).strip(), recursive));
+                i = close + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(i, end).strip();
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Missing name at " + i);
+                }
+                steps.add(name.equals("*") ? Step.wildcard(recursive) : Step.names(recursive, List.of(name)));
+                i = end;
+            }
+            if (steps.size() > MAX_STEPS) {
+                throw new IllegalArgumentException("JSONPath has more than " + MAX_STEPS + " steps");
+            }
+        }
+        return new JsonPath(steps.toArray(new Step[0]));
+    }
+
+    private static int bracketEnd(String path, int open) {
+        char quote = 0;
+        for (int i = open + 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unclosed [ at " + open);
+    }
+
+    private static Step parseBracket(String content, boolean recursive) {
+        if (content.equals("*")) {
+            return Step.wildcard(recursive);
+        }
+        if (content.startsWith("?") || content.startsWith("(")) {
+            throw new IllegalArgumentException("Filter and script expressions are not supported");
+        }
+        if (content.indexOf(':') >= 0 && content.indexOf('\'') < 0 && content.indexOf('"') < 0) {
+            String[] bounds = content.split(":", -1);
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("Slice steps are not supported: [" + content + "]");
+            }
+            int from = bounds[0].isBlank() ? 0 : index(bounds[0]);
+            int to = bounds[1].isBlank() ? Integer.MAX_VALUE : index(bounds[1]);
+            return new Step(recursive, false, List.of(), new int[0], from, to);
+        }
+
+        List<String> names = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (String part : splitUnion(content)) {
+            if (part.length() >= 2 && (part.charAt(0) == '\'' || part.charAt(0) == '"')
+                    && part.charAt(part.length() - 1) == part.charAt(0)) {
+                names.add(part.substring(1, part.length() - 1));
+            } else {
+                indexes.add(index(part));
+            }
+        }
+        int[] indexArray = indexes.stream().mapToInt(Integer::intValue).toArray();
+        return new Step(recursive, false, names, indexArray, -1, -1);
+    }
+
+    private static List<String> splitUnion(String content) {
+        List<String> parts = new ArrayList<>();
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ',') {
+                parts.add(content.substring(start, i).strip());
+                start = i + 1;
+            }
+        }
+        parts.add(content.substring(start).strip());
+        if (parts.contains("")) {
+            throw new IllegalArgumentException("Empty selector in [" + content + "]");
+        }
+        return parts;
+    }
+
+    // Array lengths are only known at the end of the array, so indexes from the end cannot be streamed
+    private static int index(String value) {
+        try {
+            int index = Integer.parseInt(value.strip());
+            if (index < 0) {
+                throw new IllegalArgumentException("Negative array indexes are not supported");
+            }
+            return index;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an array index: " + value.strip());
+        }
+    }
+
+    // Hits cover the member name and scalar value, or the name and opening bracket of a container, so a
+    // container and hits inside it never overlap. Stops early with what was found when interrupted, and
+    // returns the hits before the error, along with the error, when the text is not valid JSON past some point.
+    PathQueryResult find(String text) {
+        SearchHits.Collector hits = new SearchHits.Collector(SearchHits.MAX_HITS);
+        long[] states = new long[32];
+        int[] indexes = new int[32];
+        int depth = 0;
+        int tokens = 0;
+        String error = null;
+
+        try (JsonParser parser = FACTORY.createParser(text)) {
+            JsonToken token = parser.nextToken();
+            long parent = 1L;
+            boolean root = true;
+            while (token != null && !hits.isFull()) {
+                if (token.isStructEnd()) {
+                    depth--;
+                    if (depth <= 0) {
+                        break;
+                    }
+                    token = parser.nextToken();
+                    continue;
+                }
+
+                int hitStart = -1;
+                long state;
+                if (root) {
+                    state = parent;
+                    root = false;
+                } else if (token == JsonToken.FIELD_NAME) {
+                    hitStart = (int) parser.getTokenLocation().getCharOffset();
+                    state = advance(states[depth - 1], parser.currentName(), -1);
+                    token = parser.nextToken();
+                } else {
+                    state = advance(states[depth - 1], null, indexes[depth - 1]++);
+                }
+
+                int start = (int) parser.getTokenLocation().getCharOffset();
+                if (hitStart < 0) {
+                    hitStart = start;
+                }
+                if (token.isStructStart()) {
+                    if ((state & accepting) != 0) {
+                        hits.add(hitStart, start + 1);
+                    }
+                    if ((state & live) == 0) {
+                        parser.skipChildren();
+                        if (depth == 0) {
+                            break;
+                        }
+                    } else {
+                        if (depth == states.length) {
+                            states = Arrays.copyOf(states, depth * 2);
+                            indexes = Arrays.copyOf(indexes, depth * 2);
+                        }
+                        states[depth] = state;
+                        indexes[depth] = 0;
+                        depth++;
+                    }
+                } else if ((state & accepting) != 0) {
+                    parser.finishToken();
+                    hits.add(hitStart, (int) parser.getCurrentLocation().getCharOffset());
+                }
+
+                if (++tokens % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            JsonLocation location = e.getLocation();
+            error = location == null
+                    ? "Invalid JSON"
+                    : "Invalid JSON at line " + location.getLineNr() + ", column " + location.getColumnNr();
+        } catch (IOException e) {
+            error = "Invalid JSON: " + e.getMessage();
+        }
+        return new PathQueryResult(hits.toHits(), null, error);
+    }
+
+    // Steps matched after moving from a container with the given state to one of its members
+    private long advance(long state, String name, int index) {
+        long next = 0;
+        long remaining = state & live;
+        while (remaining != 0) {
+            int step = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            if (steps[step].recursive()) {
+                next |= 1L << step;
+            }
+            if (steps[step].matches(name, index)) {
+                next |= 1L << (step + 1);
+            }
+        }
+        return next;
+    }
+
+    // One step of the path; sliceFrom/sliceTo are -1 unless the step is a slice
+    private record Step(boolean recursive, boolean any, List<String> names, int[] indexes, int sliceFrom, int sliceTo) {
+        static Step wildcard(boolean recursive) {
+            return new Step(recursive, true, List.of(), new int[0], -1, -1);
+        }
+
+        static Step names(boolean recursive, List<String> names) {
+            return new Step(recursive, false, names, new int[0], -1, -1);
+        }
+
+        // 'name' is null for array elements, 'index' is -1 for object members
+        boolean matches(String name, int index) {
+            if (any) {
+                return true;
+            }
+            if (name != null) {
+                return names.contains(name);
+            }
+            if (sliceFrom >= 0) {
+                return index >= sliceFrom && index < sliceTo;
+            }
+            for (int candidate : indexes) {
+                if (candidate == index) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
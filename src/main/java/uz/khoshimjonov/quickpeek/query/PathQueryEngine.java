@@ -0,0 +1,53 @@
+package uz.khoshimjonov.quickpeek.query;
+
+import uz.khoshimjonov.quickpeek.format.ContentType;
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+
+// Evaluates JSONPath against JSON and XPath against XML text. Kept for as long as the text is displayed:
+// the XML DOM is parsed on the first query and reused by the following ones.
+public final class PathQueryEngine {
+    private final String text;
+    private final ContentType contentType;
+    private XmlPath xmlPath;
+
+    public PathQueryEngine(String text, ContentType contentType) {
+        if (!supports(contentType)) {
+            throw new IllegalArgumentException("Path queries need JSON or XML, not " + contentType);
+        }
+        this.text = text;
+        this.contentType = contentType;
+    }
+
+    public static boolean supports(ContentType contentType) {
+        return contentType == ContentType.JSON || contentType == ContentType.XML;
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    // Throws IllegalArgumentException for an invalid expression, or for XML that cannot be parsed
+    public PathQueryResult evaluate(String expression) {
+        if (expression.isBlank()) {
+            return new PathQueryResult(SearchHits.EMPTY, null);
+        }
+        if (contentType == ContentType.JSON) {
+            return JsonPath.parse(expression).find(text);
+        }
+        // XPath objects are not thread-safe, and a cancelled query may still be running when the next one starts
+        synchronized (this) {
+            return xmlPath().evaluate(expression.strip());
+        }
+    }
+
+    private XmlPath xmlPath() {
+        if (xmlPath == null) {
+            try {
+                xmlPath = XmlPath.parse(text);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Document is not well-formed XML: " + e.getMessage(), e);
+            }
+        }
+        return xmlPath;
+    }
+}
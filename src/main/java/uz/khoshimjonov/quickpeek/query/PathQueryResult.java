@@ -0,0 +1,11 @@
+package uz.khoshimjonov.quickpeek.query;
+
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+
+// Ranges of the matched nodes, or for expressions like count(//item) that select no nodes, their value.
+// 'error' is set when the text could not be read to the end, in which case the hits are those before it.
+public record PathQueryResult(SearchHits hits, String value, String error) {
+    public PathQueryResult(SearchHits hits, String value) {
+        this(hits, value, null);
+    }
+}
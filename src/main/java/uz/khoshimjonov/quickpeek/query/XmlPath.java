@@ -0,0 +1,181 @@
+package uz.khoshimjonov.quickpeek.query;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import uz.khoshimjonov.quickpeek.format.XmlFormatter;
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+
+import javax.xml.XMLConstants;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// XPath over a DOM parsed once from the displayed text. The DOM carries no source positions, so elements
+// are numbered in document order and matched to the start tags found by scanning the text in the same order.
+final class XmlPath {
+    private static final XPathFactory XPATH_FACTORY = newSecureXPathFactory();
+
+    private final String text;
+    private final Document document;
+    private final XPath xpath;
+    private final Map<Node, Integer> ordinals = new IdentityHashMap<>();
+    private int[] tagStarts = new int[64];
+    private int[] tagEnds = new int[64];
+    private int tagCount;
+
+    private XmlPath(String text, Document document) throws Exception {
+        this.text = text;
+        this.document = document;
+        synchronized (XPATH_FACTORY) {
+            this.xpath = XPATH_FACTORY.newXPath();
+        }
+        numberElements(document.getDocumentElement());
+        scanStartTags();
+    }
+
+    private static XPathFactory newSecureXPathFactory() {
+        try {
+            XPathFactory factory = XPathFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            return factory;
+        } catch (XPathFactoryConfigurationException e) {
+            throw new IllegalStateException("XPath does not support secure processing", e);
+        }
+    }
+
+    // Throws when the text is not well-formed XML
+    static XmlPath parse(String text) throws Exception {
+        Document document = XmlFormatter.parseSecurely(text);
+        return new XmlPath(text, document);
+    }
+
+    // Node-set results become hits on the matched start tags (attributes and text on their element's tag);
+    // other results such as count(//item) are returned as a value
+    PathQueryResult evaluate(String expression) {
+        XPathExpression compiled;
+        try {
+            compiled = xpath.compile(expression);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException(message(e), e);
+        }
+        try {
+            NodeList nodes = (NodeList) compiled.evaluate(document, XPathConstants.NODESET);
+            return new PathQueryResult(toHits(nodes), null);
+        } catch (XPathExpressionException e) {
+            try {
+                return new PathQueryResult(SearchHits.EMPTY, (String) compiled.evaluate(document, XPathConstants.STRING));
+            } catch (XPathExpressionException stringFailure) {
+                throw new IllegalArgumentException(message(stringFailure), stringFailure);
+            }
+        }
+    }
+
+    private SearchHits toHits(NodeList nodes) {
+        int[] matched = new int[nodes.getLength()];
+        int count = 0;
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            Node element = switch (node.getNodeType()) {
+                case Node.ATTRIBUTE_NODE -> ((Attr) node).getOwnerElement();
+                case Node.DOCUMENT_NODE -> document.getDocumentElement();
+                default -> node.getNodeType() == Node.ELEMENT_NODE ? node : node.getParentNode();
+            };
+            Integer ordinal = ordinals.get(element);
+            if (ordinal != null && ordinal < tagCount) {
+                matched[count++] = ordinal;
+            }
+        }
+
+        Arrays.sort(matched, 0, count);
+        SearchHits.Collector hits = new SearchHits.Collector(SearchHits.MAX_HITS);
+        int previous = -1;
+        for (int i = 0; i < count && !hits.isFull(); i++) {
+            if (matched[i] != previous) {
+                previous = matched[i];
+                hits.add(tagStarts[previous], tagEnds[previous]);
+            }
+        }
+        return hits.toHits();
+    }
+
+    // Iterative pre-order walk, which is document order; deep documents would overflow a recursive one
+    private void numberElements(Node root) {
+        List<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            ordinals.put(node, ordinals.size());
+            for (Node child = node.getLastChild(); child != null; child = child.getPreviousSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    stack.add(child);
+                }
+            }
+        }
+    }
+
+    private void scanStartTags() {
+        int i = 0;
+        while (i < text.length()) {
+            int lt = text.indexOf('<', i);
+            if (lt < 0) {
+                return;
+            }
+            if (text.startsWith("<!--", lt)) {
+                i = after("-->", lt);
+            } else if (text.startsWith("<![CDATA[", lt)) {
+                i = after("]]>", lt);
+            } else if (text.startsWith("<?", lt)) {
+                i = after("?>", lt);
+            } else if (text.startsWith("<!", lt) || text.startsWith("</", lt)) {
+                i = after(">", lt);
+            } else {
+                i = startTagEnd(lt);
+                if (tagCount == tagStarts.length) {
+                    tagStarts = Arrays.copyOf(tagStarts, tagCount * 2);
+                    tagEnds = Arrays.copyOf(tagEnds, tagCount * 2);
+                }
+                tagStarts[tagCount] = lt;
+                tagEnds[tagCount] = i;
+                tagCount++;
+            }
+        }
+    }
+
+    // Position just past the '>' closing the tag at 'lt', ignoring '>' inside quoted attribute values
+    private int startTagEnd(int lt) {
+        char quote = 0;
+        for (int i = lt + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return text.length();
+    }
+
+    private int after(String token, int from) {
+        int index = text.indexOf(token, from);
+        return index < 0 ? text.length() : index + token.length();
+    }
+
+    private static String message(XPathExpressionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : "Invalid XPath expression";
+    }
+}
@@ -0,0 +1,79 @@
+package uz.khoshimjonov.quickpeek.search;
+
+import java.util.Arrays;
+
+// Match ranges in document order, stored as primitive offsets. Matches are non-empty and never overlap, so
+// both the start and end arrays are strictly increasing and can be binary searched.
+public final class SearchHits {
+    public static final int MAX_HITS = 1_000_000;
+    public static final SearchHits EMPTY = new SearchHits(new int[0], new int[0], 0, false);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int size;
+    private final boolean truncated;
+
+    SearchHits(int[] starts, int[] ends, int size, boolean truncated) {
+        this.starts = starts;
+        this.ends = ends;
+        this.size = size;
+        this.truncated = truncated;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // True when the search stopped at the hit limit
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    // Index of the first hit ending after offset, i.e. the first one that can overlap text from offset on
+    public int firstEndingAfter(int offset) {
+        int index = Arrays.binarySearch(ends, 0, size, offset + 1);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // Accumulates hits, which must be added in document order without overlapping
+    public static final class Collector {
+        private final int limit;
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int size;
+
+        public Collector(int limit) {
+            this.limit = limit;
+        }
+
+        public void add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        public boolean isFull() {
+            return size >= limit;
+        }
+
+        public SearchHits toHits() {
+            return new SearchHits(starts, ends, size, isFull());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package uz.khoshimjonov.quickpeek.search;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Built once per document text. Case folding is done per char, so the folded copy has the same offsets as
+// the original and literal searches need no lowercasing per keystroke.
+//
+// Text too large for the heap, such as a memory-mapped document, gets no folded copy; literal searches
+// then run as quoted case-insensitive patterns over the text itself.
+public final class SearchIndex {
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 16;
+
+    private final CharSequence text;
+    private final String folded;
+
+    private SearchIndex(CharSequence text, String folded) {
+        this.text = text;
+        this.folded = folded;
+    }
+
+    public static SearchIndex of(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new SearchIndex(text, new String(chars));
+    }
+
+    public static SearchIndex unindexed(CharSequence text) {
+        return new SearchIndex(text, null);
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    // Throws PatternSyntaxException for an invalid regex; returns early with what was found when interrupted
+    public SearchHits find(SearchQuery query) {
+        if (query.pattern().isEmpty()) {
+            return SearchHits.EMPTY;
+        }
+        SearchHits.Collector hits = new SearchHits.Collector(SearchHits.MAX_HITS);
+        if (query.regex()) {
+            findRegex(Pattern.compile(query.pattern(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE), query, hits);
+        } else if (folded == null) {
+            findRegex(Pattern.compile(Pattern.quote(query.pattern()), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE), query, hits);
+        } else {
+            findLiteral(query, hits);
+        }
+        return hits.toHits();
+    }
+
+    private void findLiteral(SearchQuery query, SearchHits.Collector hits) {
+        String needle = foldAll(query.pattern());
+        int index = folded.indexOf(needle);
+        int checked = 0;
+        while (index >= 0 && !hits.isFull()) {
+            int end = index + needle.length();
+            if (!query.wholeWord() || isWordBoundary(index, end)) {
+                hits.add(index, end);
+                index = folded.indexOf(needle, end);
+            } else {
+                index = folded.indexOf(needle, index + 1);
+            }
+            if (++checked % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private void findRegex(Pattern pattern, SearchQuery query, SearchHits.Collector hits) {
+        Matcher matcher = pattern.matcher(new InterruptibleText(text));
+        try {
+            while (matcher.find() && !hits.isFull()) {
+                int start = matcher.start();
+                int end = matcher.end();
+                if (start < end && (!query.wholeWord() || isWordBoundary(start, end))) {
+                    hits.add(start, end);
+                }
+            }
+        } catch (SearchInterruptedException e) {
+            // keep what was found before the search was superseded
+        }
+    }
+
+    private boolean isWordBoundary(int start, int end) {
+        return (start == 0 || !isWordChar(text.charAt(start - 1)))
+                && (end == text.length() || !isWordChar(text.charAt(end)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static String foldAll(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // Lets a runaway regex on a huge document be abandoned when the search is cancelled
+    private static final class InterruptibleText implements CharSequence {
+        private final CharSequence text;
+        private int reads;
+
+        InterruptibleText(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                throw new SearchInterruptedException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    private static final class SearchInterruptedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SearchInterruptedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package uz.khoshimjonov.quickpeek.search;
+
+// Matching is always case-insensitive; whole-word restricts matches to ones not touching letters or digits
+public record SearchQuery(String pattern, boolean regex, boolean wholeWord) {
+}
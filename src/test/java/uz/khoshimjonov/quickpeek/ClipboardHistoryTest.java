@@ -0,0 +1,190 @@
+package uz.khoshimjonov.quickpeek;
+
+import org.junit.jupiter.api.Test;
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClipboardHistoryTest {
+    private static final int ENTRY_CHARS = 2_000;
+
+    @Test
+    void entriesRoundTripNewestFirst() {
+        ClipboardHistory history = new ClipboardHistory(10, 1 << 20);
+        add(history, "{\"a\":1}", "{\n  \"a\" : 1\n}", ContentType.JSON);
+        add(history, "Ärger ✓ 😀", "Ärger ✓ 😀", ContentType.PLAIN);
+
+        assertEquals(2, history.size());
+        ClipboardHistory.Entry newest = history.get(0);
+        assertEquals("Ärger ✓ 😀", newest.source());
+        assertEquals(ContentType.PLAIN, newest.result().contentType());
+        ClipboardHistory.Entry oldest = history.get(1);
+        assertEquals("{\"a\":1}", oldest.source());
+        assertEquals("{\n  \"a\" : 1\n}", oldest.result().text());
+        assertEquals(ContentType.JSON, oldest.result().contentType());
+        assertEquals(3, oldest.result().lineIndex().lineCount());
+        assertNull(history.get(2));
+        assertNull(history.get(-1));
+    }
+
+    @Test
+    void emptyTextRoundTrips() {
+        ClipboardHistory history = new ClipboardHistory(10, 1 << 20);
+        add(history, "", "", ContentType.PLAIN);
+        assertEquals("", history.get(0).source());
+        assertEquals("", history.get(0).result().text());
+    }
+
+    @Test
+    void addingTheSameContentAgainMovesItToTheFront() {
+        ClipboardHistory history = new ClipboardHistory(10, 1 << 20);
+        add(history, "a", "a", ContentType.PLAIN);
+        add(history, "b", "b", ContentType.PLAIN);
+        add(history, "a", "a", ContentType.PLAIN);
+
+        assertEquals(2, history.size());
+        assertEquals("a", history.get(0).source());
+        assertEquals("b", history.get(1).source());
+    }
+
+    @Test
+    void keysFollowEntriesAsTheyMove() {
+        ClipboardHistory history = new ClipboardHistory(2, 1 << 20);
+        add(history, "a", "a", ContentType.PLAIN);
+        FormatCache.Key a = history.keyAt(0);
+        assertEquals(key("a"), a);
+
+        add(history, "b", "b", ContentType.PLAIN);
+        assertEquals(1, history.indexOf(a));
+        add(history, "c", "c", ContentType.PLAIN);
+        assertEquals(-1, history.indexOf(a));
+        assertNull(history.keyAt(2));
+    }
+
+    @Test
+    void oldestEntriesBeyondTheCountAreDropped() {
+        ClipboardHistory history = new ClipboardHistory(3, 1 << 20);
+        for (int i = 0; i < 5; i++) {
+            add(history, "entry " + i, "entry " + i, ContentType.PLAIN);
+        }
+        assertEquals(3, history.size());
+        assertEquals("entry 4", history.get(0).source());
+        assertEquals("entry 2", history.get(2).source());
+    }
+
+    @Test
+    void withoutASpillFileEntriesBeyondTheMemoryBudgetAreDropped() {
+        ClipboardHistory history = new ClipboardHistory(10, 3 * ENTRY_CHARS * 2);
+        for (int i = 0; i < 5; i++) {
+            String text = random(i);
+            add(history, text, text, ContentType.PLAIN);
+        }
+        assertTrue(history.size() < 5);
+        assertTrue(history.getMemoryBytes() <= 3 * ENTRY_CHARS * 2);
+        assertEquals(random(4), history.get(0).source());
+    }
+
+    @Test
+    void entriesBeyondTheMemoryBudgetSpillToDiskAndReadBack() throws IOException {
+        try (ClipboardHistory history = new ClipboardHistory(10, 3 * ENTRY_CHARS * 2, 1 << 20)) {
+            for (int i = 0; i < 6; i++) {
+                String text = random(i);
+                add(history, text, text.toUpperCase(), ContentType.PLAIN);
+            }
+            assertEquals(6, history.size());
+            assertTrue(history.getSpilledBytes() > 0);
+            assertTrue(history.getMemoryBytes() <= 3 * ENTRY_CHARS * 2);
+            assertTrue(Files.size(history.getSpillFile()) >= history.getSpilledBytes());
+            for (int i = 0; i < 6; i++) {
+                ClipboardHistory.Entry entry = history.get(5 - i);
+                assertEquals(random(i), entry.source());
+                assertEquals(random(i).toUpperCase(), entry.result().text());
+            }
+        }
+    }
+
+    @Test
+    void entriesLargerThanTheMemoryBudgetGoStraightToDisk() throws IOException {
+        try (ClipboardHistory history = new ClipboardHistory(10, ENTRY_CHARS, 1 << 20)) {
+            add(history, "a", "a", ContentType.PLAIN);
+            long small = history.getMemoryBytes();
+            String large = random(0) + random(1);
+            add(history, large, large, ContentType.PLAIN);
+
+            // the small entry stays in memory
+            assertEquals(2, history.size());
+            assertEquals(small, history.getMemoryBytes());
+            assertTrue(history.getSpilledBytes() > ENTRY_CHARS);
+            assertEquals(large, history.get(0).source());
+            assertEquals("a", history.get(1).source());
+        }
+    }
+
+    @Test
+    void entriesLargerThanTheSpillBudgetAreDropped() throws IOException {
+        try (ClipboardHistory history = new ClipboardHistory(10, ENTRY_CHARS, 2 * ENTRY_CHARS)) {
+            add(history, "a", "a", ContentType.PLAIN);
+            String large = random(0) + random(1);
+            add(history, large, large, ContentType.PLAIN);
+
+            assertEquals(1, history.size());
+            assertEquals(0, history.getSpilledBytes());
+            assertEquals("a", history.get(0).source());
+        }
+    }
+
+    @Test
+    void spillFileIsBoundedAndCompacted() throws IOException {
+        long maxSpill = 8 * ENTRY_CHARS * 2;
+        try (ClipboardHistory history = new ClipboardHistory(1_000, ENTRY_CHARS * 2, maxSpill)) {
+            for (int i = 0; i < 400; i++) {
+                String text = random(i);
+                add(history, text, text, ContentType.PLAIN);
+                assertTrue(history.getSpilledBytes() <= maxSpill);
+            }
+            // dead space left by dropped entries is reclaimed once it outgrows the live entries
+            assertTrue(Files.size(history.getSpillFile()) <= 2 * maxSpill + (1 << 20));
+            assertEquals(random(399), history.get(0).source());
+            int oldest = history.size() - 1;
+            assertEquals(random(400 - 1 - oldest), history.get(oldest).source());
+        }
+    }
+
+    @Test
+    void closeClearsTheHistoryAndDeletesTheSpillFile() throws IOException {
+        ClipboardHistory history = new ClipboardHistory(10, ENTRY_CHARS * 2, 1 << 20);
+        add(history, random(0), random(0), ContentType.PLAIN);
+        add(history, random(1), random(1), ContentType.PLAIN);
+        assertTrue(Files.exists(history.getSpillFile()));
+
+        history.close();
+        assertEquals(0, history.size());
+        assertNull(history.get(0));
+        assertFalse(Files.exists(history.getSpillFile()));
+    }
+
+    private static void add(ClipboardHistory history, String source, String text, ContentType contentType) {
+        history.add(source, key(source), new DisplayResult(text, LineIndex.of(text), contentType));
+    }
+
+    private static FormatCache.Key key(String source) {
+        return FormatCache.Key.of(source, ContentType.PLAIN);
+    }
+
+    // Letters in random order hardly compress, so each entry takes about ENTRY_CHARS bytes per text
+    private static String random(int seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(ENTRY_CHARS);
+        for (int i = 0; i < ENTRY_CHARS; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package uz.khoshimjonov.quickpeek;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileTailTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsAppendedLinesWithoutTheLastTerminator() throws IOException {
+        FileTail tail = open("first\n");
+        append("second\nthird\n");
+
+        FileTail.Appended appended = tail.readAppended();
+        assertEquals("second\nthird", appended.text());
+        assertFalse(appended.continuesLine());
+        assertEquals("", tail.readAppended().text());
+    }
+
+    @Test
+    void waitsForPartialLinesToBeCompleted() throws IOException {
+        FileTail tail = open("first\n");
+        append("sec");
+        assertEquals("", tail.readAppended().text());
+
+        append("ond\nthi");
+        assertEquals("second", tail.readAppended().text());
+        append("rd\n");
+        assertEquals("third", tail.readAppended().text());
+    }
+
+    @Test
+    void marksTextContinuingALineShownWithoutTerminator() throws IOException {
+        FileTail tail = open("first");
+        append(" part\nnext\n");
+
+        FileTail.Appended appended = tail.readAppended();
+        assertEquals(" part\nnext", appended.text());
+        assertTrue(appended.continuesLine());
+
+        append("more\n");
+        assertFalse(tail.readAppended().continuesLine());
+    }
+
+    @Test
+    void stripsTheCarriageReturnOfTheLastLine() throws IOException {
+        FileTail tail = open("first\r\n");
+        append("second\r\n");
+        assertEquals("second", tail.readAppended().text());
+    }
+
+    @Test
+    void decodesMultiByteCharactersSplitAcrossReads() throws IOException {
+        FileTail tail = open("");
+        byte[] word = "ärger\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(file(), new byte[]{word[0]}, StandardOpenOption.APPEND);
+        assertEquals("", tail.readAppended().text());
+        Files.write(file(), Arrays.copyOfRange(word, 1, word.length), StandardOpenOption.APPEND);
+        assertEquals("ärger", tail.readAppended().text());
+    }
+
+    @Test
+    void truncatedFileIsReportedAsRewritten() throws IOException {
+        FileTail tail = open("first\nsecond\n");
+        Files.writeString(file(), "first\n");
+        assertNull(tail.readAppended());
+    }
+
+    @Test
+    void rewrittenFileIsReportedEvenWhenItGrew() throws IOException {
+        FileTail tail = open("first\nsecond\n");
+        Files.writeString(file(), "FIRST\nSECOND\nthird\n");
+        assertNull(tail.readAppended());
+    }
+
+    @Test
+    void unchangedFileHasNothingAppended() throws IOException {
+        FileTail tail = open("first\n");
+        FileTail.Appended appended = tail.readAppended();
+        assertEquals("", appended.text());
+        assertFalse(appended.continuesLine());
+    }
+
+    private FileTail open(String content) throws IOException {
+        Files.writeString(file(), content);
+        return new FileTail(file(), Files.readAllBytes(file()));
+    }
+
+    private void append(String text) throws IOException {
+        Files.writeString(file(), text, StandardOpenOption.APPEND);
+    }
+
+    private Path file() {
+        return dir.resolve("tail.log");
+    }
+}
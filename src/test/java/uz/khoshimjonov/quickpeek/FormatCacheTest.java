@@ -0,0 +1,126 @@
+package uz.khoshimjonov.quickpeek;
+
+import org.junit.jupiter.api.Test;
+import uz.khoshimjonov.quickpeek.format.ContentType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormatCacheTest {
+
+    @Test
+    void returnsWhatWasPutAndCountsHitsAndMisses() {
+        FormatCache cache = new FormatCache(1 << 20);
+        DisplayResult result = result("a");
+        cache.put(key("a"), result);
+
+        assertSame(result, cache.get(key("a")));
+        assertNull(cache.get(key("b")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(result.retainedBytes(), cache.getBytes());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryFirst() {
+        long size = result("a").retainedBytes();
+        FormatCache cache = new FormatCache(3 * size);
+        cache.put(key("a"), result("a"));
+        cache.put(key("b"), result("b"));
+        cache.put(key("c"), result("c"));
+        cache.get(key("a"));
+        cache.put(key("d"), result("d"));
+
+        assertFalse(cache.contains(key("b")));
+        assertTrue(cache.contains(key("a")));
+        assertTrue(cache.contains(key("c")));
+        assertTrue(cache.contains(key("d")));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void containsDoesNotRefreshAnEntry() {
+        long size = result("a").retainedBytes();
+        FormatCache cache = new FormatCache(2 * size);
+        cache.put(key("a"), result("a"));
+        cache.put(key("b"), result("b"));
+        cache.contains(key("a"));
+        cache.put(key("c"), result("c"));
+
+        assertFalse(cache.contains(key("a")));
+        assertEquals(0, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    void staysWithinTheByteBudget() {
+        FormatCache cache = new FormatCache(10_000);
+        for (int i = 0; i < 200; i++) {
+            String text = "x".repeat(i * 37 % 900);
+            cache.put(FormatCache.Key.of(text + i, ContentType.PLAIN), result(text));
+            assertTrue(cache.getBytes() <= 10_000);
+        }
+        // one large result outweighs several small ones
+        cache.put(key("big"), result("y".repeat(4_000)));
+        assertTrue(cache.contains(key("big")));
+        assertTrue(cache.getBytes() <= 10_000);
+    }
+
+    @Test
+    void doesNotCacheResultsLargerThanTheBudget() {
+        FormatCache cache = new FormatCache(1_000);
+        cache.put(key("a"), result("a"));
+        cache.put(key("huge"), result("z".repeat(1_000)));
+
+        assertFalse(cache.contains(key("huge")));
+        assertTrue(cache.contains(key("a")));
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void replacingAnEntryUpdatesTheSize() {
+        FormatCache cache = new FormatCache(1 << 20);
+        cache.put(key("a"), result("short"));
+        DisplayResult longer = result("a much longer result");
+        cache.put(key("a"), longer);
+
+        assertEquals(1, cache.size());
+        assertEquals(longer.retainedBytes(), cache.getBytes());
+    }
+
+    @Test
+    void trimToReleasesEntriesDownToTheLimit() {
+        long size = result("a").retainedBytes();
+        FormatCache cache = new FormatCache(1 << 20);
+        cache.put(key("a"), result("a"));
+        cache.put(key("b"), result("b"));
+        cache.put(key("c"), result("c"));
+
+        cache.trimTo(size);
+        assertEquals(1, cache.size());
+        assertTrue(cache.contains(key("c")));
+        cache.trimTo(0);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void keysDependOnContentAndType() {
+        assertEquals(FormatCache.Key.of("{\"a\":1}", ContentType.JSON), FormatCache.Key.of("{\"a\":1}", ContentType.JSON));
+        assertNotEquals(FormatCache.Key.of("{\"a\":1}", ContentType.JSON), FormatCache.Key.of("{\"a\":2}", ContentType.JSON));
+        assertNotEquals(FormatCache.Key.of("abcd", ContentType.JSON), FormatCache.Key.of("abcd", ContentType.PLAIN));
+        assertNotEquals(FormatCache.Key.hash("abcde"), FormatCache.Key.hash("abced"));
+        assertNotEquals(FormatCache.Key.hash(""), FormatCache.Key.hash("\0"));
+    }
+
+    private static FormatCache.Key key(String content) {
+        return FormatCache.Key.of(content, ContentType.PLAIN);
+    }
+
+    private static DisplayResult result(String text) {
+        return new DisplayResult(text, LineIndex.of(text), ContentType.PLAIN);
+    }
+}
@@ -0,0 +1,74 @@
+package uz.khoshimjonov.quickpeek;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class QuickPeekCliTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesEachInputBelowTheOutputDirectory() throws IOException {
+        write("in/x/resp.json", "{\"a\":1}");
+        write("in/y/resp.json", "{\"b\":2}");
+        Path out = dir.resolve("out");
+
+        assertEquals(0, run("--out", out.toString(), dir.resolve("in").toString()));
+        assertEquals("{\n  \"a\" : 1\n}", Files.readString(out.resolve("x/resp.json")));
+        assertEquals("{\n  \"b\" : 2\n}", Files.readString(out.resolve("y/resp.json")));
+    }
+
+    @Test
+    void rejectsFilesWithTheSameNameBeforeWritingAnything() throws IOException {
+        write("a/resp.json", "{\"a\":1}");
+        write("b/resp.json", "{\"b\":2}");
+        Path out = dir.resolve("out");
+
+        assertEquals(2, run("--out", out.toString(), dir.resolve("a/resp.json").toString(),
+                dir.resolve("b/resp.json").toString()));
+        assertFalse(Files.exists(out));
+    }
+
+    @Test
+    void rejectsDirectoriesSharingARelativePath() throws IOException {
+        write("a/data/resp.json", "{\"a\":1}");
+        write("b/data/resp.json", "{\"b\":2}");
+        Path out = dir.resolve("out");
+
+        assertEquals(2, run("--out", out.toString(), dir.resolve("a").toString(), dir.resolve("b").toString()));
+        assertFalse(Files.exists(out));
+    }
+
+    @Test
+    void rejectsTheSameFileGivenTwice() throws IOException {
+        write("resp.json", "{\"a\":1}");
+        String input = dir.resolve("resp.json").toString();
+        assertEquals(2, run("--out", dir.resolve("out").toString(), input, input));
+    }
+
+    @Test
+    void malformedInputIsCopiedAndFailsTheRun() throws IOException {
+        write("bad.json", "{\"a\":");
+        Path out = dir.resolve("out");
+
+        assertEquals(1, run("--out", out.toString(), dir.resolve("bad.json").toString()));
+        assertEquals("{\"a\":", Files.readString(out.resolve("bad.json")));
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static int run(String... args) {
+        return QuickPeekCli.run(args);
+    }
+}
@@ -0,0 +1,117 @@
+package uz.khoshimjonov.quickpeek;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import uz.khoshimjonov.quickpeek.format.ContentType;
+import uz.khoshimjonov.quickpeek.format.FormatEngine;
+import uz.khoshimjonov.quickpeek.format.FormatResult;
+import uz.khoshimjonov.quickpeek.format.XmlFormatter;
+import uz.khoshimjonov.quickpeek.query.PathQueryEngine;
+import uz.khoshimjonov.quickpeek.search.SearchIndex;
+import uz.khoshimjonov.quickpeek.search.SearchQuery;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Opens and closes viewer sessions through the FX-free layer the viewer is built on: format, line index,
+// search, path query, cache and history. The viewer window itself needs a JavaFX toolkit with a display.
+// Sessions run on this thread, so the pooled parser and transformer stay alive across them, and the test
+// checks they do not hold on to the last document.
+class SessionLeakTest {
+    private static final int WARM_UP_SESSIONS = 500;
+    private static final int SESSIONS = 3_000;
+    private static final long MAX_GROWTH_BYTES = 4L << 20;
+
+    private final FormatEngine formatEngine = new FormatEngine();
+    private final FormatCache cache = new FormatCache(1L << 20);
+    private final ClipboardHistory history = new ClipboardHistory(50, 1L << 20);
+
+    @Test
+    void retainedHeapStaysFlatAcrossSessions() throws InterruptedException {
+        for (int i = 0; i < WARM_UP_SESSIONS; i++) {
+            openAndClose(payload(i));
+        }
+        long before = usedAfterGc();
+        for (int i = WARM_UP_SESSIONS; i < WARM_UP_SESSIONS + SESSIONS; i++) {
+            openAndClose(payload(i));
+        }
+        long after = usedAfterGc();
+        assertTrue(after - before < MAX_GROWTH_BYTES,
+                "retained heap grew by " + (after - before) / 1024 + " KB over " + SESSIONS + " sessions");
+        assertEquals(50, history.size());
+    }
+
+    @Test
+    void lastPayloadIsReleasedWhenItsSessionCloses() throws InterruptedException {
+        String payload = payload(-1);
+        DisplayResult result = openAndClose(payload);
+        WeakReference<String> payloadReference = new WeakReference<>(payload);
+        WeakReference<DisplayResult> resultReference = new WeakReference<>(result);
+        payload = null;
+        result = null;
+
+        awaitCleared(payloadReference);
+        awaitCleared(resultReference);
+        // the history keeps a compressed copy, so the session can still be recalled
+        assertTrue(history.get(0).source().contains("id=\"-1\""));
+    }
+
+    @Test
+    void pooledParserDoesNotHoldTheLastDocument() throws Exception {
+        Document document = XmlFormatter.parseSecurely(payload(-2));
+        WeakReference<Document> reference = new WeakReference<>(document);
+        document = null;
+
+        awaitCleared(reference);
+        // the same pooled parser still works afterwards
+        assertEquals("order", XmlFormatter.parseSecurely(payload(-3)).getDocumentElement().getTagName());
+    }
+
+    // What showing a payload in the viewer and closing it again leaves behind: a cache entry, trimmed away
+    // like on the idle timeout, and a history entry
+    private DisplayResult openAndClose(String payload) {
+        FormatResult formatted = formatEngine.format(payload);
+        assertEquals(ContentType.XML, formatted.contentType());
+        DisplayResult result = new DisplayResult(formatted.text(), LineIndex.of(formatted.text()), ContentType.XML);
+        FormatCache.Key key = FormatCache.Key.of(payload, ContentType.XML);
+        cache.put(key, result);
+        history.add(payload, key, result);
+
+        SearchIndex.of(result.text()).find(new SearchQuery("item", false, true));
+        new PathQueryEngine(result.text(), ContentType.XML).evaluate("//item[@sku]");
+        new XmlFormatter().formatCanonical(payload);
+
+        cache.trimTo(0);
+        return result;
+    }
+
+    private static String payload(int id) {
+        StringBuilder xml = new StringBuilder("<order id=\"").append(id).append("\">");
+        for (int i = 0; i < 20; i++) {
+            xml.append("<item sku=\"").append(id).append('-').append(i).append("\">").append(i).append("</item>");
+        }
+        return xml.append("</order>").toString();
+    }
+
+    private static void awaitCleared(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    private static long usedAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,172 @@
+package uz.khoshimjonov.quickpeek.diff;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineDiffTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void identicalTextsHaveOnlyUnchangedRows() {
+        LineDiff diff = LineDiff.compute("a\nb", "a\nb", TIMEOUT_MILLIS);
+        assertTrue(diff.isIdentical());
+        assertEquals("…2", render(diff));
+        assertEquals("=", render(LineDiff.compute("a", "a", TIMEOUT_MILLIS)));
+    }
+
+    @Test
+    void pairsDeletedWithInsertedLinesAsChanged() {
+        LineDiff diff = LineDiff.compute("a\nb\nc", "a\nB\nc", TIMEOUT_MILLIS);
+        assertEquals("= ~ =", render(diff));
+        assertEquals(1, diff.deletedLines());
+        assertEquals(1, diff.insertedLines());
+        DiffRow changed = diff.rows().get(1);
+        assertEquals("b", diff.leftLine(changed.leftLine()));
+        assertEquals("B", diff.rightLine(changed.rightLine()));
+    }
+
+    @Test
+    void unpairedLinesAreDeletedOrInserted() {
+        assertEquals("= - =", render(LineDiff.compute("a\nb\nc", "a\nc", TIMEOUT_MILLIS)));
+        assertEquals("= + + =", render(LineDiff.compute("a\nc", "a\nx\ny\nc", TIMEOUT_MILLIS)));
+        assertEquals("~ +", render(LineDiff.compute("a", "x\ny", TIMEOUT_MILLIS)));
+        assertEquals("~", render(LineDiff.compute("", "x", TIMEOUT_MILLIS)));
+    }
+
+    @Test
+    void rowsCarryLineIndexesOfBothSides() {
+        LineDiff diff = LineDiff.compute("a\nb\nc", "a\nc\nd", TIMEOUT_MILLIS);
+        assertEquals(List.of(
+                new DiffRow(DiffRow.Kind.SAME, 0, 0, 1),
+                new DiffRow(DiffRow.Kind.DELETED, 1, -1, 1),
+                new DiffRow(DiffRow.Kind.SAME, 2, 1, 1),
+                new DiffRow(DiffRow.Kind.INSERTED, -1, 2, 1)), diff.rows());
+    }
+
+    @Test
+    void longUnchangedRunsCollapseAroundContext() {
+        String left = lines(0, 20);
+        String right = left.replace("line 10", "LINE 10");
+        LineDiff diff = LineDiff.compute(left, right, TIMEOUT_MILLIS);
+        // no context is kept before the first change or after the last one
+        assertEquals("…7 = = = ~ = = = …6", render(diff));
+
+        DiffRow collapsed = diff.rows().get(0);
+        List<DiffRow> expanded = diff.expand(collapsed);
+        assertEquals(7, expanded.size());
+        assertEquals(new DiffRow(DiffRow.Kind.SAME, 0, 0, 1), expanded.get(0));
+        assertEquals(new DiffRow(DiffRow.Kind.SAME, 6, 6, 1), expanded.get(6));
+    }
+
+    @Test
+    void runsBetweenChangesKeepContextOnBothSides() {
+        String left = lines(0, 20);
+        String right = left.replace("line 1\n", "LINE 1\n").replace("line 18", "LINE 18");
+        assertEquals("= ~ = = = …10 = = = ~ =", render(LineDiff.compute(left, right, TIMEOUT_MILLIS)));
+        // a run only one line longer than its context is not worth collapsing
+        String shortRun = left.replace("line 1\n", "LINE 1\n").replace("line 9", "LINE 9");
+        assertEquals("= ~ = = = = = = = ~ = = = …7", render(LineDiff.compute(left, shortRun, TIMEOUT_MILLIS)));
+    }
+
+    @Test
+    void lineEndingsDoNotCountAsChanges() {
+        LineDiff diff = LineDiff.compute("a\r\nb\r\n", "a\nb", TIMEOUT_MILLIS);
+        assertTrue(diff.isIdentical());
+        assertEquals(2, diff.leftLineCount());
+        assertEquals("b", diff.leftLine(1));
+        assertTrue(LineDiff.compute("a\nb\n", "a\nb", TIMEOUT_MILLIS).isIdentical());
+    }
+
+    @Test
+    void findsAMinimalEditScript() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            List<String> a = randomLines(random);
+            List<String> b = randomLines(random);
+            LineDiff diff = LineDiff.compute(String.join("\n", a), String.join("\n", b), TIMEOUT_MILLIS);
+            assertTrue(diff.isMinimal());
+            assertEquals(a.size() + b.size() - 2 * lcs(a, b), diff.deletedLines() + diff.insertedLines(),
+                    a + " -> " + b);
+            assertKeptLinesMatch(diff);
+        }
+    }
+
+    @Test
+    void aDiffCutShortByTheTimeLimitIsStillCorrect() {
+        String left = lines(0, 200);
+        String right = lines(0, 200).replace("line 50", "x").replace("line 150", "y");
+        LineDiff diff = LineDiff.compute(left, right, -1);
+        assertFalse(diff.isMinimal());
+        assertFalse(diff.isIdentical());
+        assertKeptLinesMatch(diff);
+        // common head and tail are trimmed before the search, so they stay unchanged
+        assertEquals(DiffRow.Kind.COLLAPSED, diff.rows().get(0).kind());
+    }
+
+    // Every SAME row pairs equal lines, and walking the rows visits each line of both sides once in order
+    private static void assertKeptLinesMatch(LineDiff diff) {
+        int left = 0;
+        int right = 0;
+        for (DiffRow row : diff.rows()) {
+            List<DiffRow> rows = row.kind() == DiffRow.Kind.COLLAPSED ? diff.expand(row) : List.of(row);
+            for (DiffRow line : rows) {
+                if (line.leftLine() >= 0) {
+                    assertEquals(left++, line.leftLine());
+                }
+                if (line.rightLine() >= 0) {
+                    assertEquals(right++, line.rightLine());
+                }
+                if (line.kind() == DiffRow.Kind.SAME) {
+                    assertEquals(diff.leftLine(line.leftLine()), diff.rightLine(line.rightLine()));
+                }
+            }
+        }
+        assertEquals(diff.leftLineCount(), left);
+        assertEquals(diff.rightLineCount(), right);
+    }
+
+    private static String render(LineDiff diff) {
+        return diff.rows().stream().map(row -> switch (row.kind()) {
+            case SAME -> "=";
+            case CHANGED -> "~";
+            case DELETED -> "-";
+            case INSERTED -> "+";
+            case COLLAPSED -> "…" + row.lines();
+        }).collect(Collectors.joining(" "));
+    }
+
+    private static String lines(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "line " + i).collect(Collectors.joining("\n", "", "\n"));
+    }
+
+    // Few distinct lines, so that the texts share many of them in different orders
+    private static List<String> randomLines(Random random) {
+        List<String> lines = new ArrayList<>();
+        int count = 1 + random.nextInt(12);
+        for (int i = 0; i < count; i++) {
+            lines.add(String.valueOf((char) ('a' + random.nextInt(4))));
+        }
+        return lines;
+    }
+
+    private static int lcs(List<String> a, List<String> b) {
+        int[][] lengths = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                lengths[i][j] = a.get(i).equals(b.get(j))
+                        ? lengths[i + 1][j + 1] + 1
+                        : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        return lengths[0][0];
+    }
+}
@@ -0,0 +1,129 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentSnifferTest {
+
+    @Test
+    void json() {
+        assertSniff(ContentSniffer.Kind.JSON, 95, "  {\"a\": [1, 2]}  ");
+        assertSniff(ContentSniffer.Kind.JSON, 95, "[1, 2, 3]");
+        assertSniff(ContentSniffer.Kind.JSON, 95, "[\n  {\"a\": 1},\n  {\"b\": 2}\n]");
+        assertSniff(ContentSniffer.Kind.JSON, 95, "[]");
+        assertSniff(ContentSniffer.Kind.JSON, 95, "[true, null]");
+        assertSniff(ContentSniffer.Kind.JSON, 95, "[-1.5e+3]");
+        assertSniff(ContentSniffer.Kind.JSON, 95, "\uFEFF{\"bom\": true}");
+        // JSON that embeds markup stays JSON
+        assertSniff(ContentSniffer.Kind.JSON, 95, "{\"html\": \"<b>x</b>\"}");
+    }
+
+    @Test
+    void truncatedJsonHasLowerConfidence() {
+        assertSniff(ContentSniffer.Kind.JSON, 60, "{\"a\": [1, 2");
+        assertSniff(ContentSniffer.Kind.JSON, 80, ContentSniffer.sniffPrefix("{\"a\": [1, 2"));
+    }
+
+    @Test
+    void bracketedLogPrefixesAreNotJson() {
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("[main] INFO started").kind());
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("[12:00:01] server up").kind());
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("[ERROR] build failed").kind());
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("[tests] passed").kind());
+    }
+
+    @Test
+    void ndjson() {
+        assertSniff(ContentSniffer.Kind.NDJSON, 95, "{\"a\": 1}\n{\"a\": 2}\n[3]\n");
+        assertEquals(ContentType.LOG, ContentSniffer.Kind.NDJSON.contentType());
+    }
+
+    @Test
+    void xml() {
+        assertSniff(ContentSniffer.Kind.XML, 100, "<?xml version=\"1.0\"?><a/>");
+        assertSniff(ContentSniffer.Kind.XML, 90, "<a>{\"json\": \"inside\"}</a>");
+        assertSniff(ContentSniffer.Kind.XML, 60, "<a><b>cut off");
+    }
+
+    @Test
+    void javaObject() {
+        assertSniff(ContentSniffer.Kind.JAVA_OBJECT, 90, "Person(name=Ann, age=3)");
+        assertSniff(ContentSniffer.Kind.JAVA_OBJECT, 90, "Person{name='Ann'}");
+        assertSniff(ContentSniffer.Kind.JAVA_OBJECT, 70, "List(Ann, Bob)");
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("Empty()").kind());
+        // a call followed by more text is prose, not a toString
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("call(x) and then more").kind());
+    }
+
+    @Test
+    void log() {
+        String log = "2024-01-01 INFO a - {\"x\":1}\n    at Foo.bar(Foo.java:1)\n2024-01-01 WARN b - <a/>\n";
+        assertEquals(ContentSniffer.Kind.LOG, ContentSniffer.sniff(log).kind());
+        // a log whose records start with '[' or '<' is still a log
+        assertEquals(ContentSniffer.Kind.LOG,
+                ContentSniffer.sniff("[main] got {\"a\":1}\n[main] got {\"a\":2}\n").kind());
+        // records must be at least half the lines
+        String mostlyPlain = "2024-01-01 INFO a - {\"x\":1}\n2024-01-01 INFO b - {\"x\":2}\none\ntwo\nthree\nfour\nfive\n";
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff(mostlyPlain).kind());
+    }
+
+    @Test
+    void yaml() {
+        assertSniff(ContentSniffer.Kind.YAML, 100, "server:\n  port: 8080\n  hosts:\n    - a\n    - b\n");
+        assertEquals(ContentSniffer.Kind.YAML, ContentSniffer.sniff("---\nname: x\n").kind());
+        assertEquals(ContentSniffer.Kind.YAML, ContentSniffer.sniff("%YAML 1.2\n---\n").kind());
+        // comments do not count against the entries
+        assertSniff(ContentSniffer.Kind.YAML, 100, "# settings\na: 1\nb: two\n");
+        // "key:value" without a space is not a YAML mapping
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("a:1\nb:2\n").kind());
+        assertEquals(ContentType.PLAIN, ContentSniffer.Kind.YAML.contentType());
+    }
+
+    @Test
+    void properties() {
+        assertSniff(ContentSniffer.Kind.PROPERTIES, 100, "# db\nserver.port=8080\ndb-url = jdbc:h2:mem\n! note\n");
+        assertSniff(ContentSniffer.Kind.PROPERTIES, 80, "a=1\nb=2\nc=3\nd=4\njust text\n");
+        // indented assignments are not property lines
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniff("  a=1\n  b=2\n").kind());
+        assertEquals(ContentType.PLAIN, ContentSniffer.Kind.PROPERTIES.contentType());
+    }
+
+    @Test
+    void plainText() {
+        assertEquals(ContentSniffer.Sniff.NOTHING, ContentSniffer.sniff(""));
+        assertEquals(ContentSniffer.Sniff.NOTHING, ContentSniffer.sniff(" \n\t "));
+        assertEquals(ContentSniffer.Sniff.NOTHING, ContentSniffer.sniff("Just a sentence.\nAnd another."));
+        assertEquals(ContentSniffer.Sniff.NOTHING, ContentSniffer.sniff("a single line: with a colon"));
+    }
+
+    @Test
+    void prefixLeavesOutTheCutOffLastLine() {
+        // the last line may continue past the prefix, so only the first line counts and that is not enough
+        assertEquals(ContentSniffer.Kind.PLAIN, ContentSniffer.sniffPrefix("a: 1\nb: 2").kind());
+        assertEquals(ContentSniffer.Kind.YAML, ContentSniffer.sniffPrefix("a: 1\nb: 2\nc: 3").kind());
+    }
+
+    @Test
+    void onlyTheFirstKilobytesAreScanned() {
+        String text = "a: 1\nb: 2\n" + "x".repeat(ContentSniffer.PREFIX_CHARS) + "\n{\"a\": 1}\n";
+        assertEquals(ContentSniffer.Kind.YAML, ContentSniffer.sniff(text).kind());
+    }
+
+    @Test
+    void jsonFormatterDoesNotClaimBracketedLogLines() {
+        JsonFormatter formatter = new JsonFormatter();
+        assertTrue(formatter.accepts("[1, 2]"));
+        assertFalse(formatter.accepts("[main] INFO started"));
+    }
+
+    private static void assertSniff(ContentSniffer.Kind kind, int confidence, String text) {
+        assertSniff(kind, confidence, ContentSniffer.sniff(text));
+    }
+
+    private static void assertSniff(ContentSniffer.Kind kind, int confidence, ContentSniffer.Sniff sniff) {
+        assertEquals(new ContentSniffer.Sniff(kind, confidence), sniff);
+    }
+}
@@ -0,0 +1,144 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaObjectFormatterTest {
+    private final JavaObjectFormatter formatter = new JavaObjectFormatter();
+
+    @Test
+    void indentsNestedObjects() {
+        assertEquals(String.join("\n",
+                        "Person(",
+                        "  name = Ann,",
+                        "  age = 3,",
+                        "  address = Address(",
+                        "    city = Paris,",
+                        "    zip = 75001",
+                        "  ),",
+                        "  tags = [a, b]",
+                        ")"),
+                formatter.format("Person(name=Ann, age=3, address=Address(city=Paris, zip=75001), tags=[a, b])"));
+        assertEquals("A(\n  b = B(\n    c = C(\n      d = 1\n    )\n  )\n)", formatter.format("A(b=B(c=C(d=1)))"));
+    }
+
+    @Test
+    void formatsScalarValuesByKind() {
+        assertEquals(String.join("\n",
+                        "Order{",
+                        "  id = 1,",
+                        "  price = 12.50,",
+                        "  note = 'hello, world',",
+                        "  desc = \"two words\",",
+                        "  status = ACTIVE,",
+                        "  flag = true,",
+                        "  off = false,",
+                        "  none = null,",
+                        "  empty = null",
+                        "}"),
+                formatter.format("Order{id=1, price=12.50, note='hello, world', desc=two words, status=ACTIVE, "
+                        + "flag=TRUE, off=False, none=null, empty=}"));
+    }
+
+    @Test
+    void shortArraysStayOnOneLineAndLongerOnesAreSplit() {
+        assertEquals("A(\n  items = []\n)", formatter.format("A(items=[ ])"));
+        assertEquals("A(\n  items = [1, 2, 3]\n)", formatter.format("A(items=[1,2, 3])"));
+        assertEquals("A(\n  items = [\n    1,\n    2,\n    3,\n    4\n  ]\n)", formatter.format("A(items=[1, 2, 3, 4])"));
+    }
+
+    @Test
+    void quotedDelimitersAreNotStructure() {
+        assertEquals("Weird(\n  a = \"q, (x=\",\n  b = 'it''s, ok'\n)",
+                formatter.format("Weird(a=\"q, (x=\", b='it''s, ok')"));
+        assertEquals("A(\n  s = \"a \\\" b, c\"\n)", formatter.format("A(s=\"a \\\" b, c\")"));
+    }
+
+    @Test
+    void trailingCommaAndFieldsWithoutValue() {
+        assertEquals("A(\n  x = 1\n)", formatter.format("A(x=1,)"));
+        assertEquals("List(\n  Ann,\n  Bob\n)", formatter.format("List(Ann, Bob)"));
+    }
+
+    @Test
+    void mismatchedBracketTypesStillNest() {
+        // the closing ')' is kept inside the value, and the '{' still opens a nested level
+        assertEquals("Outer(\n  inner = Inner{\n    x = 1)\n  }\n)", formatter.format("Outer(inner=Inner{x=1)}"));
+    }
+
+    @Test
+    void unbalancedNestedValueIsKeptAsText() {
+        assertEquals("Outer(\n  inner = \"Inner(x=[1, 2), y=2\"\n)", formatter.format("Outer(inner=Inner(x=[1, 2), y=2)"));
+    }
+
+    @Test
+    void rejectsTextThatIsNotAnObjectDump() {
+        assertNull(formatter.format("Not an object"));
+        assertNull(formatter.format("A(x=1"));
+        assertNull(formatter.format("A()"));
+        assertNull(formatter.format("   "));
+        assertFalse(formatter.accepts("A(x=1,\ny=2)"));
+        assertTrue(formatter.accepts("pkg.Outer$Inner (x=1)"));
+    }
+
+    @Test
+    void deeplyNestedDumpsDoNotOverflow() {
+        int depth = 2_000;
+        String dump = "A(x=".repeat(depth) + "1" + ")".repeat(depth);
+        String formatted = formatter.format(dump);
+        assertTrue(formatted.startsWith("A(\n  x = A(\n    x = A("));
+        assertTrue(formatted.endsWith("\n  )\n)"));
+    }
+
+    @Test
+    void classifiesNumbers() {
+        assertKind(JavaObjectFormatter.ValueKind.INTEGER, "42");
+        assertKind(JavaObjectFormatter.ValueKind.INTEGER, "-7");
+        assertKind(JavaObjectFormatter.ValueKind.DECIMAL, "12.50");
+        assertKind(JavaObjectFormatter.ValueKind.DECIMAL, "-0.5");
+        assertKind(JavaObjectFormatter.ValueKind.DECIMAL, ".5");
+        // no digits after the point, two points, or a sign alone are not numbers
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "1.");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "1.2.3");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "-");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "1e3");
+    }
+
+    @Test
+    void classifiesQuotedValuesIncludingSpaces() {
+        assertKind(JavaObjectFormatter.ValueKind.QUOTED, "'a b'");
+        assertKind(JavaObjectFormatter.ValueKind.QUOTED, "\"a, b\"");
+        assertKind(JavaObjectFormatter.ValueKind.QUOTED, "''");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "'a b\"");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "two words");
+    }
+
+    @Test
+    void classifiesKeywordsAndStructures() {
+        assertKind(JavaObjectFormatter.ValueKind.NULL, "null");
+        assertKind(JavaObjectFormatter.ValueKind.BOOLEAN, "true");
+        assertKind(JavaObjectFormatter.ValueKind.BOOLEAN, "FALSE");
+        assertKind(JavaObjectFormatter.ValueKind.ENUM_CONSTANT, "ACTIVE_NOW");
+        // upper-case NULL is an enum-like constant, not null
+        assertKind(JavaObjectFormatter.ValueKind.ENUM_CONSTANT, "NULL");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "Active");
+        assertKind(JavaObjectFormatter.ValueKind.ARRAY, "[1, 2]");
+        assertKind(JavaObjectFormatter.ValueKind.OBJECT, "Inner(x=1)");
+        assertKind(JavaObjectFormatter.ValueKind.TEXT, "Inner()");
+    }
+
+    @Test
+    void classifiesOnlyTheGivenRange() {
+        String source = "x=12.5, y";
+        assertEquals(JavaObjectFormatter.ValueKind.DECIMAL, JavaObjectFormatter.classify(source, 2, 6));
+        assertEquals(JavaObjectFormatter.ValueKind.INTEGER, JavaObjectFormatter.classify(source, 2, 4));
+    }
+
+    private static void assertKind(JavaObjectFormatter.ValueKind kind, String value) {
+        assertEquals(kind, JavaObjectFormatter.classify(value, 0, value.length()), value);
+    }
+}
@@ -0,0 +1,104 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonFormatterTest {
+    private static final String NESTED = "{\"a\":{\"b\":[1,2,{\"c\":null}]},\"e\":[]}";
+
+    private static final String NESTED_FORMATTED = String.join("\n",
+            "{",
+            "  \"a\" : {",
+            "    \"b\" : [ 1, 2, {",
+            "      \"c\" : null",
+            "    } ]",
+            "  },",
+            "  \"e\" : [ ]",
+            "}");
+
+    private final JsonFormatter formatter = new JsonFormatter();
+
+    @Test
+    void indentsNestedObjectsAndArrays() {
+        assertEquals(NESTED_FORMATTED, formatter.format(NESTED));
+        assertEquals(NESTED_FORMATTED, formatter.formatStrict(NESTED));
+        assertEquals("{ }", formatter.format("{}"));
+    }
+
+    @Test
+    void keepsMemberOrder() {
+        assertEquals("{\n  \"b\" : 1,\n  \"a\" : 2\n}", formatter.format("{\"b\":1,\"a\":2}"));
+    }
+
+    @Test
+    void keepsEscapesAndScalars() {
+        assertEquals("[ 1, \"x\\n\\\"yé\\\\\", true, null, false ]",
+                formatter.format("[1,\"x\\n\\\"y\\u00e9\\\\\",true,null,false]"));
+    }
+
+    @Test
+    void keepsNumbersAsWritten() {
+        assertEquals("[ 1.50, -2e3, 0.12345678901234567890123, 123456789012345678901234567890 ]",
+                formatter.format("[1.50,-2e3,0.12345678901234567890123,123456789012345678901234567890]"));
+    }
+
+    @Test
+    void streamingMatchesInMemoryFormatting() throws IOException {
+        StringWriter output = new StringWriter();
+        formatter.formatStreaming(new StringReader(NESTED), output);
+        assertEquals(NESTED_FORMATTED, output.toString());
+    }
+
+    @Test
+    void streamingRejectsMalformedInput() {
+        assertThrows(IOException.class,
+                () -> formatter.formatStreaming(new StringReader("{\"a\":[1,2}"), new StringWriter()));
+    }
+
+    @Test
+    void malformedInputFallsBackToTheManualFormatter() {
+        assertEquals("{\n  \"a\": 1,\n  ,\n}", formatter.format("{\"a\": 1,,}"));
+        assertEquals("{\n  \"a\": [\n    1,\n    2\n  }", formatter.format("{\"a\":[1,2}"));
+        // quoted brackets and escaped quotes are not structure
+        assertEquals("{\n  \"a\": \"[\\\"}\",\n  ,\n}", formatter.format("{\"a\":\"[\\\"}\",,}"));
+    }
+
+    @Test
+    void strictAndCanonicalFormattingRejectMalformedInput() {
+        assertNull(formatter.formatStrict("{\"a\": 1,,}"));
+        assertNull(formatter.formatStrict("{\"a\":[1,2}"));
+        assertNull(formatter.formatCanonical("{\"a\":[1,2}"));
+    }
+
+    @Test
+    void canonicalFormSortsMembersAndKeepsDecimalDigits() {
+        assertEquals(String.join("\n",
+                        "{",
+                        "  \"a\" : {",
+                        "    \"c\" : 1.0,",
+                        "    \"d\" : 2",
+                        "  },",
+                        "  \"b\" : 1",
+                        "}"),
+                formatter.formatCanonical("{\"b\":1,\"a\":{\"d\":2,\"c\":1.0}}"));
+        assertEquals("[ 1.50, -2000 ]", formatter.formatCanonical("[1.50,-2e3]"));
+    }
+
+    @Test
+    void interruptedFormattingReturnsNull() {
+        String large = "[" + "1,".repeat(10_000) + "1]";
+        Thread.currentThread().interrupt();
+        try {
+            assertNull(formatter.format(large));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordFormatterTest {
+    private static final String LOG = String.join("\n",
+            "2024-01-01 INFO svc - {\"b\":1,\"a\":[1,2]}",
+            "    at Foo.bar(Foo.java:1)",
+            "2024-01-01 WARN svc - <a><b>1</b></a>",
+            "2024-01-01 DEBUG svc - User(id=1, name=x)",
+            "2024-01-01 INFO plain line");
+
+    private static final String FORMATTED_LOG = String.join("\n",
+            "2024-01-01 INFO svc - {",
+            "  \"b\" : 1,",
+            "  \"a\" : [ 1, 2 ]",
+            "}",
+            "    at Foo.bar(Foo.java:1)",
+            "2024-01-01 WARN svc - <a>",
+            "  <b>1</b>",
+            "</a>",
+            "2024-01-01 DEBUG svc - User(",
+            "  id = 1,",
+            "  name = x",
+            ")",
+            "2024-01-01 INFO plain line");
+
+    private static ExecutorService executor;
+
+    private final RecordFormatter formatter =
+            new RecordFormatter(new JsonFormatter(), new XmlFormatter(), new JavaObjectFormatter());
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void acceptsLogsAndNdjson() {
+        assertTrue(formatter.accepts(LOG));
+        assertTrue(formatter.accepts("{\"a\":1}\n{\"b\":2}"));
+    }
+
+    @Test
+    void rejectsTextWithoutRecords() {
+        assertFalse(formatter.accepts("just text\nmore text {"));
+        // a single record is not enough to call it a log
+        assertFalse(formatter.accepts("2024-01-01 INFO svc - {\"a\":1}"));
+    }
+
+    @Test
+    void formatsTheFragmentAfterEachPrefix() {
+        assertEquals(FORMATTED_LOG, formatter.format(LOG));
+    }
+
+    @Test
+    void formatsNdjsonLineByLine() {
+        assertEquals("{\n  \"a\" : 1\n}\n{\n  \"b\" : 2\n}", formatter.format("{\"a\":1}\n{\"b\":2}"));
+    }
+
+    @Test
+    void leavesMalformedFragmentsAndContinuationLinesAsTheyAre() {
+        assertEquals("x - {\"a\": 1,,}", formatter.formatLine("x - {\"a\": 1,,}"));
+        assertEquals("    at {\"a\":1}", formatter.formatLine("    at {\"a\":1}"));
+    }
+
+    @Test
+    void incrementalChunksAddUpToTheWholeResult() throws InterruptedException {
+        String log = (LOG + "\n").repeat(300).strip();
+        StringBuilder chunks = new StringBuilder();
+        formatter.formatIncrementally(log, executor, 4, chunks::append);
+        assertEquals(formatter.format(log), chunks.toString());
+    }
+
+    @Test
+    void streamingMatchesInMemoryFormatting() throws Exception {
+        String log = (LOG + "\n").repeat(300).strip();
+        StringWriter output = new StringWriter();
+        formatter.formatStreaming(new BufferedReader(new StringReader(log)), output, executor, 4);
+        assertEquals(formatter.format(log), output.toString());
+    }
+}
@@ -0,0 +1,103 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingFormatterTest {
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16_BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16_LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private static ExecutorService executor;
+
+    @TempDir
+    Path dir;
+
+    private final StreamingFormatter formatter = new StreamingFormatter();
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void utf8ByteOrderMarkIsSkipped() throws Exception {
+        Path input = write(UTF_8_BOM, "{\"a\":\"é\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(ContentType.JSON, formatter.detect(input));
+        assertEquals("{\n  \"a\" : \"é\"\n}", format(input, ContentType.JSON));
+    }
+
+    @Test
+    void utf16ByteOrderMarksSelectTheByteOrder() throws Exception {
+        String xml = "<a><b>é</b></a>";
+        Path bigEndian = write(UTF_16_BE_BOM, xml.getBytes(StandardCharsets.UTF_16BE));
+        assertEquals("<a>\n  <b>é</b>\n</a>\n", format(bigEndian, ContentType.XML));
+        Path littleEndian = write(UTF_16_LE_BOM, xml.getBytes(StandardCharsets.UTF_16LE));
+        assertEquals("<a>\n  <b>é</b>\n</a>\n", format(littleEndian, ContentType.XML));
+    }
+
+    @Test
+    void invalidUtf8BytesBecomeReplacementCharacters() throws Exception {
+        byte[] latin1 = {'{', '"', 'a', '"', ':', '"', 'c', 'a', 'f', (byte) 0xE9, '"', '}'};
+        assertEquals("{\n  \"a\" : \"caf�\"\n}", format(write(latin1), ContentType.JSON));
+
+        byte[] xml = {'<', 'a', '>', (byte) 0xFF, '<', '/', 'a', '>'};
+        assertEquals("<a>�</a>\n", format(write(xml), ContentType.XML));
+
+        byte[] text = {'p', 'l', 'a', 'i', 'n', ' ', (byte) 0xC3, '(', ' ', (byte) 0x80};
+        assertEquals("plain �( �", format(write(text), ContentType.PLAIN));
+    }
+
+    @Test
+    void malformedContentIsCopiedUnchanged() throws Exception {
+        Path xml = write(UTF_8_BOM, "<a><b>1</a>".getBytes(StandardCharsets.UTF_8));
+        assertEquals(ContentType.XML, formatter.detect(xml));
+        assertEquals("<a><b>1</a>", format(xml, ContentType.PLAIN));
+
+        Path json = write("{\"a\":[1,2}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("{\"a\":[1,2}", format(json, ContentType.PLAIN));
+    }
+
+    @Test
+    void outputUsesTheRequestedCharset() throws Exception {
+        Path input = write("{\"a\":\"é\"}".getBytes(StandardCharsets.UTF_8));
+        Path output = dir.resolve("out-" + System.nanoTime());
+        assertEquals(ContentType.JSON, formatter.format(input, output, StandardCharsets.UTF_16LE, executor, 2));
+        assertEquals("{\n  \"a\" : \"é\"\n}", Files.readString(output, StandardCharsets.UTF_16LE));
+    }
+
+    private String format(Path input, ContentType expectedType) throws Exception {
+        Path output = dir.resolve("out-" + System.nanoTime());
+        Charset charset = StandardCharsets.UTF_8;
+        assertEquals(expectedType, formatter.format(input, output, charset, executor, 2));
+        return Files.readString(output, charset);
+    }
+
+    private Path write(byte[]... parts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            bytes.write(part);
+        }
+        Path file = Files.createTempFile(dir, "in", ".txt");
+        Files.write(file, bytes.toByteArray());
+        return file;
+    }
+}
@@ -0,0 +1,98 @@
+package uz.khoshimjonov.quickpeek.format;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XmlFormatterTest {
+    private final XmlFormatter formatter = new XmlFormatter();
+
+    @Test
+    void streamingIndentsLikeInMemoryFormatting() throws IOException {
+        String xml = "<a><b>1</b><c/><d></d><e><f>2</f></e></a>";
+        assertEquals(String.join("\n",
+                        "<a>",
+                        "  <b>1</b>",
+                        "  <c/>",
+                        "  <d/>",
+                        "  <e>",
+                        "    <f>2</f>",
+                        "  </e>",
+                        "</a>",
+                        ""),
+                streaming(xml));
+        assertSameLayout(xml);
+    }
+
+    @Test
+    void streamingKeepsTheTextOfLeafElementsAsItIs() throws IOException {
+        String xml = "<a><b> x </b><c>  </c><d>\n  y\n</d></a>";
+        assertEquals("<a>\n  <b> x </b>\n  <c>  </c>\n  <d>\n  y\n</d>\n</a>\n", streaming(xml));
+        assertSameLayout(xml);
+    }
+
+    @Test
+    void streamingPutsMixedContentOnSeparateLines() throws IOException {
+        // formatXml keeps the spaces around the text; the streaming form trims them, as the line breaks
+        // separate the parts anyway
+        assertEquals(String.join("\n",
+                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                        "<root>",
+                        "  <p>",
+                        "    Hello",
+                        "    <b>bold</b>",
+                        "    world",
+                        "  </p>",
+                        "</root>",
+                        ""),
+                streaming("<?xml version=\"1.0\"?><root><p>Hello <b>bold</b> world</p></root>"));
+    }
+
+    @Test
+    void streamingEscapesAttributesAndText() throws IOException {
+        String xml = "<a x=\"1 &lt; 2 &amp; &quot;q&quot;\" y='it&apos;s &gt;'>t &amp; &lt;u&gt; \"v\"</a>";
+        assertEquals("<a x=\"1 &lt; 2 &amp; &quot;q&quot;\" y=\"it's &gt;\">t &amp; &lt;u&gt; \"v\"</a>\n",
+                streaming(xml));
+        assertSameLayout(xml);
+        // CDATA is read as text and written escaped
+        assertEquals("<a>&lt;raw&gt; &amp; stuff</a>\n", streaming("<a><![CDATA[<raw> & stuff]]></a>"));
+    }
+
+    @Test
+    void streamingKeepsPrefixes() throws IOException {
+        String xml = "<ns:a xmlns:ns=\"urn:x\" xmlns=\"urn:d\"><ns:b ns:attr=\"v\" plain=\"w\">1</ns:b></ns:a>";
+        assertEquals("<ns:a xmlns:ns=\"urn:x\" xmlns=\"urn:d\">\n  <ns:b ns:attr=\"v\" plain=\"w\">1</ns:b>\n</ns:a>\n",
+                streaming(xml));
+        assertSameLayout(xml);
+    }
+
+    @Test
+    void streamingKeepsCommentsAndProcessingInstructions() throws IOException {
+        String xml = "<a><!-- note --><?pi data?><?empty?><b/></a>";
+        assertEquals("<a>\n  <!-- note -->\n  <?pi data?>\n  <?empty?>\n  <b/>\n</a>\n", streaming(xml));
+        assertSameLayout(xml);
+    }
+
+    @Test
+    void streamingRejectsMalformedInput() {
+        assertThrows(IOException.class, () -> streaming("<a><b></a>"));
+        assertThrows(IOException.class, () -> streaming("<a>"));
+    }
+
+    private String streaming(String xml) throws IOException {
+        StringWriter output = new StringWriter();
+        formatter.formatStreaming(new StringReader(xml), output);
+        return output.toString();
+    }
+
+    // formatXml always writes a declaration, the streaming form only when the input has one
+    private void assertSameLayout(String xml) throws IOException {
+        String expected = formatter.formatXml(xml);
+        assertEquals(expected.substring(expected.indexOf("?>") + 2).stripLeading(), streaming(xml));
+    }
+}
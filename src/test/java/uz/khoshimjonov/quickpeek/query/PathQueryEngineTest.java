@@ -0,0 +1,131 @@
+package uz.khoshimjonov.quickpeek.query;
+
+import org.junit.jupiter.api.Test;
+import uz.khoshimjonov.quickpeek.format.ContentType;
+import uz.khoshimjonov.quickpeek.search.SearchHits;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PathQueryEngineTest {
+    private static final String JSON = """
+            {"store": {"book": [{"title": "A", "price": 8}, {"title": "B", "price": 12}, {"title": "C"}],
+             "bike": {"price": 20}}, "title": "top"}""";
+
+    private static final String XML = """
+            <?xml version="1.0"?>
+            <!-- <item>commented</item> -->
+            <list name="x">
+              <item id="1">one</item>
+              <item id="2"><![CDATA[<item>]]></item>
+              <other a=">"/>
+            </list>""";
+
+    @Test
+    void jsonMemberAndIndexSteps() {
+        assertEquals(List.of("\"title\": \"A\""), json("$.store.book[0].title"));
+        assertEquals(List.of("\"title\": \"B\""), json("$['store']['book'][1]['title']"));
+        assertEquals(List.of("\"bike\": {"), json("$.store.bike"));
+    }
+
+    @Test
+    void jsonUnionsSlicesAndWildcards() {
+        assertEquals(List.of("\"title\": \"A\"", "\"title\": \"C\""), json("$.store.book[0,2].title"));
+        assertEquals(List.of("\"price\": 8", "\"price\": 12"), json("$.store.book[:2].price"));
+        assertEquals(List.of("\"price\": 12"), json("$.store.book[1:].price"));
+        assertEquals(List.of("\"title\": \"A\"", "\"title\": \"B\"", "\"title\": \"C\""), json("$.store.book[*].title"));
+        assertEquals(List.of("\"book\": [", "\"bike\": {"), json("$.store.*"));
+    }
+
+    @Test
+    void jsonRecursiveDescentFindsEveryDepth() {
+        assertEquals(List.of("\"price\": 8", "\"price\": 12", "\"price\": 20"), json("$..price"));
+        assertEquals(List.of("\"title\": \"A\"", "\"title\": \"B\"", "\"title\": \"C\"", "\"title\": \"top\""),
+                json("$..title"));
+        assertEquals(List.of("{"), json("$..book[1]"));
+    }
+
+    @Test
+    void jsonRootAndMissingPaths() {
+        assertEquals(List.of("{"), json("$"));
+        assertEquals(List.of(), json("$.store.book[5]"));
+        assertEquals(List.of(), json("$.nothing.here"));
+    }
+
+    @Test
+    void jsonStopsAtTheFirstErrorKeepingEarlierHits() {
+        PathQueryEngine engine = new PathQueryEngine("[{\"a\": 1}, {\"a\": 2}, {\"a\": ", ContentType.JSON);
+        PathQueryResult result = engine.evaluate("$[*].a");
+        assertEquals(2, result.hits().size());
+        assertEquals("Invalid JSON at line 1, column 28", result.error());
+        assertNull(new PathQueryEngine(JSON, ContentType.JSON).evaluate("$..price").error());
+    }
+
+    @Test
+    void jsonExpressionsOutsideTheSubsetAreRejected() {
+        for (String expression : List.of("store.book", "$.book[?(@.price < 10)]", "$.book[(@.length-1)]",
+                "$.book[-1]", "$.book[0:4:2]", "$.book[x]", "$.book[0", "$..", "$.book[0,]")) {
+            assertThrows(IllegalArgumentException.class, () -> JsonPath.parse(expression), expression);
+        }
+    }
+
+    @Test
+    void blankExpressionMatchesNothing() {
+        assertEquals(SearchHits.EMPTY, new PathQueryEngine(JSON, ContentType.JSON).evaluate("  ").hits());
+    }
+
+    @Test
+    void xmlNodeSetsHitTheStartTags() {
+        assertEquals(List.of("<item id=\"1\">", "<item id=\"2\">"), xml("//item"));
+        assertEquals(List.of("<item id=\"2\">"), xml("/list/item[@id='2']"));
+        assertEquals(List.of("<list name=\"x\">"), xml("/"));
+    }
+
+    @Test
+    void xmlAttributesAndTextHitTheirElement() {
+        assertEquals(List.of("<list name=\"x\">"), xml("/list/@name"));
+        assertEquals(List.of("<item id=\"1\">"), xml("//item[1]/text()"));
+        assertEquals(List.of("<other a=\">\"/>"), xml("//other/@a"));
+    }
+
+    @Test
+    void xmlScalarResultsAreReturnedAsValues() {
+        PathQueryResult result = new PathQueryEngine(XML, ContentType.XML).evaluate("count(//item)");
+        assertEquals(SearchHits.EMPTY, result.hits());
+        assertEquals("2", result.value());
+        assertNull(new PathQueryEngine(XML, ContentType.XML).evaluate("//item").value());
+    }
+
+    @Test
+    void invalidXPathAndMalformedXmlAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PathQueryEngine(XML, ContentType.XML).evaluate("//item["));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PathQueryEngine("<a><b></a>", ContentType.XML).evaluate("//a"));
+    }
+
+    @Test
+    void otherContentTypesAreNotSupported() {
+        assertThrows(IllegalArgumentException.class, () -> new PathQueryEngine("a = 1", ContentType.PLAIN));
+    }
+
+    private static List<String> json(String expression) {
+        return matched(JSON, ContentType.JSON, expression);
+    }
+
+    private static List<String> xml(String expression) {
+        return matched(XML, ContentType.XML, expression);
+    }
+
+    private static List<String> matched(String text, ContentType contentType, String expression) {
+        SearchHits hits = new PathQueryEngine(text, contentType).evaluate(expression).hits();
+        List<String> matched = new ArrayList<>();
+        for (int i = 0; i < hits.size(); i++) {
+            matched.add(text.substring(hits.start(i), hits.end(i)));
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,87 @@
+package uz.khoshimjonov.quickpeek.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchIndexTest {
+
+    @Test
+    void literalSearchIgnoresCase() {
+        assertEquals(List.of("0-3", "4-7", "8-11"), find("Foo foo FOO", "fOo", false, false));
+    }
+
+    @Test
+    void literalHitsDoNotOverlap() {
+        assertEquals(List.of("0-2", "2-4"), find("aaaa", "aa", false, false));
+    }
+
+    @Test
+    void foldingKeepsOffsetsForNonAsciiText() {
+        assertEquals(List.of("8-13", "14-19"), find("STRASSE Ärger äRGER", "ärger", false, false));
+        // final sigma, small sigma and capital sigma fold to the same char
+        assertEquals(List.of("0-1", "2-3", "4-5"), find("Σ σ ς", "ς", false, false));
+    }
+
+    @Test
+    void wholeWordSkipsMatchesInsideWords() {
+        assertEquals(List.of("0-3", "17-20"), find("cat concat cat_x cat.", "cat", false, true));
+        assertEquals(List.of("5-8"), find("acat cat", "CAT", false, true));
+    }
+
+    @Test
+    void regexSearchIgnoresCaseAndSkipsEmptyMatches() {
+        assertEquals(List.of("0-5", "7-13"), find("id=12, ID=345", "id=\\d+", true, false));
+        assertEquals(List.of(), find("abc", "x*", true, false));
+        assertEquals(List.of("4-8"), find("key keys", "\\w+s", true, true));
+    }
+
+    @Test
+    void invalidRegexThrows() {
+        assertThrows(PatternSyntaxException.class, () -> SearchIndex.of("abc").find(new SearchQuery("(", true, false)));
+    }
+
+    @Test
+    void emptyPatternFindsNothing() {
+        assertSame(SearchHits.EMPTY, SearchIndex.of("abc").find(new SearchQuery("", false, false)));
+    }
+
+    @Test
+    void unindexedTextFindsTheSameAsIndexedText() {
+        String text = "Alpha beta ALPHA-gamma alphabet (alpha) Ärger ärger";
+        for (String pattern : List.of("alpha", "ärger", "a.p", "(")) {
+            for (boolean wholeWord : new boolean[]{false, true}) {
+                SearchQuery query = new SearchQuery(pattern, false, wholeWord);
+                assertEquals(ranges(SearchIndex.of(text).find(query)),
+                        ranges(SearchIndex.unindexed(new StringBuilder(text)).find(query)), pattern);
+            }
+        }
+    }
+
+    @Test
+    void firstEndingAfterFindsTheFirstHitReachingAnOffset() {
+        SearchHits hits = SearchIndex.of("ab ab ab").find(new SearchQuery("ab", false, false));
+        assertEquals(0, hits.firstEndingAfter(0));
+        assertEquals(0, hits.firstEndingAfter(1));
+        assertEquals(1, hits.firstEndingAfter(2));
+        assertEquals(3, hits.firstEndingAfter(8));
+    }
+
+    private static List<String> find(String text, String pattern, boolean regex, boolean wholeWord) {
+        return ranges(SearchIndex.of(text).find(new SearchQuery(pattern, regex, wholeWord)));
+    }
+
+    private static List<String> ranges(SearchHits hits) {
+        List<String> ranges = new ArrayList<>();
+        for (int i = 0; i < hits.size(); i++) {
+            ranges.add(hits.start(i) + "-" + hits.end(i));
+        }
+        return ranges;
+    }
+}